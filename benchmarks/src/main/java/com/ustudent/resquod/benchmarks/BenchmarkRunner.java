@@ -0,0 +1,29 @@
+package com.ustudent.resquod.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+/**
+ * Runs the benchmarks like org.openjdk.jmh.Main, but writes JSON results to jmh-result.json
+ * unless -rf / -rff say otherwise, so every run leaves a file to compare releases with.
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (!commandLine.getResultFormat().hasValue())
+            builder.resultFormat(ResultFormatType.JSON);
+        if (!commandLine.getResult().hasValue())
+            builder.result(DEFAULT_RESULT_FILE);
+        Options options = builder.parent(commandLine).build();
+        new Runner(options).run();
+    }
+}
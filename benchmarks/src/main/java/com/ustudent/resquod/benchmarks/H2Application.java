@@ -0,0 +1,36 @@
+package com.ustudent.resquod.benchmarks;
+
+import com.ustudent.resquod.ResquodApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the application on a random port against a named in-memory H2 database in MariaDB mode,
+ * for the benchmarks that need the real repositories and transactions.
+ */
+public final class H2Application {
+
+    private H2Application() {
+    }
+
+    /**
+     * Extra arguments are passed to Spring Boot after the defaults, so they can override them.
+     */
+    public static ConfigurableApplicationContext start(String database, Path keyFile, String... properties) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--server.port=0",
+                "--resquod.jwt.key-file=" + keyFile,
+                "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(properties));
+        return new SpringApplicationBuilder(ResquodApplication.class).run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,75 @@
+package com.ustudent.resquod.benchmarks;
+
+import com.ustudent.resquod.configuration.QueryCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the always-on instrumentation adds to each call: a repository timer with and without the
+ * percentile histogram, a check-in counter, the registry lookup JwtFilter does per request and
+ * the statement counter. Compare with baseline, which only reads the clock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class InstrumentationBenchmark {
+
+    private PrometheusMeterRegistry registry;
+    private Timer timer;
+    private Timer histogramTimer;
+    private Counter counter;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = Timer.builder("resquod.repository").tag("repository", "EventRepository")
+                .tag("method", "findById").tag("outcome", "success").register(registry);
+        histogramTimer = Timer.builder("resquod.repository").tag("repository", "EventRepository")
+                .tag("method", "findAllEventDTOs").tag("outcome", "success")
+                .publishPercentileHistogram().register(registry);
+        counter = Counter.builder("resquod.checkin").tag("outcome", "marked").register(registry);
+    }
+
+    @Benchmark
+    public long baseline() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void timer() {
+        long start = System.nanoTime();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void histogramTimer() {
+        long start = System.nanoTime();
+        histogramTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void counter() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void timerLookup() {
+        long start = System.nanoTime();
+        registry.timer("resquod.jwt.authentication", "outcome", "cached").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void statementCounter() {
+        QueryCounter.record();
+    }
+}
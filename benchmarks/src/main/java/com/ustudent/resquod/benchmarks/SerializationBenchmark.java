@@ -0,0 +1,71 @@
+package com.ustudent.resquod.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.ustudent.resquod.model.dao.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response bodies of /allEvents, /getEventUsers and /attendancelist/{eventId} at page sizes the endpoints return,
+ * written with an ObjectMapper set up the way Spring Boot sets up the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "500"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<EventDTO> events;
+    private List<UserData> users;
+    private List<AttendanceListEventData> attendanceLists;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new Hibernate5Module())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        events = new ArrayList<>();
+        users = new ArrayList<>();
+        attendanceLists = new ArrayList<>();
+        EventRoomData eventData = new EventRoomData(1L, "Algorithms", "password", new NewRoomData(1L, "Room 101", 1L));
+        LocalDateTime start = LocalDateTime.of(2020, 3, 2, 8, 0);
+        for (int i = 0; i < size; i++) {
+            long id = i;
+            events.add(new EventDTO(id, "Event " + i, 1L, "password" + i,
+                    id % 50, "Room " + id % 50, id % 5, "Corporation " + id % 5));
+            users.add(new UserData(id, "student" + i + "@test.pl", "ROLE_USER", "Jan", "Kowalski"));
+            attendanceLists.add(new AttendanceListEventData(id, "Lecture " + i,
+                    start.plusWeeks(i), start.plusWeeks(i).plusMinutes(90), eventData));
+        }
+    }
+
+    @Benchmark
+    public byte[] events() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(events);
+    }
+
+    @Benchmark
+    public byte[] users() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] attendanceLists() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(attendanceLists);
+    }
+}
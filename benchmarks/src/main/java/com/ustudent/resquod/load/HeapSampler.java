@@ -0,0 +1,59 @@
+package com.ustudent.resquod.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples the heap left after the most recent collection of each pool while a scenario runs. That follows the
+ * live set instead of the garbage waiting to be collected, so it shows whether a scenario retains memory
+ * in proportion to the data it reads. The harness shares the JVM with the application, the figures include both.
+ */
+class HeapSampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MS = 20;
+
+    private final AtomicLong peak = new AtomicLong();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "heap-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    HeapSampler() {
+        sampler.scheduleAtFixedRate(() -> peak.accumulateAndGet(liveHeap(), Math::max),
+                0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Live heap right now, after asking for a full collection.
+     */
+    static long settledHeap() {
+        System.gc();
+        return liveHeap();
+    }
+
+    long peak() {
+        return peak.get();
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+
+    private static long liveHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterCollection = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterCollection != null)
+                used += afterCollection.getUsed();
+        }
+        return used;
+    }
+}
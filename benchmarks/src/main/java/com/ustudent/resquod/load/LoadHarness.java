@@ -0,0 +1,230 @@
+package com.ustudent.resquod.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ustudent.resquod.ResquodApplication;
+import com.ustudent.resquod.service.AttendanceStatisticsService;
+import com.ustudent.resquod.service.JwtService;
+import com.ustudent.resquod.service.PasswordHasher;
+import com.ustudent.resquod.service.PresenceService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots the application on a random port against an in-memory H2 database in MariaDB mode, seeds it and
+ * replays a morning through the REST endpoints: every student logs in, joins one more event and taps a tag
+ * in one of their rooms, then staff and students browse reports and browse them again with the ETags they got,
+ * which gives the 304 hit rate of the conditional endpoints, and finally export attendance while the live heap
+ * is sampled. Needs no network beyond localhost.
+ *
+ *     java -cp benchmarks/target/benchmarks.jar com.ustudent.resquod.load.LoadHarness students=5000 concurrency=200
+ *
+ * Prints one line per scenario and writes the full results, including the most executed statements, as JSON.
+ */
+public class LoadHarness {
+
+    private static final Random RANDOM = new Random(42);
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        Path keyFile = Files.createTempFile("load-jwt-signing-keys", null);
+        System.setProperty("spring.datasource.url", "jdbc:h2:mem:resquod-load;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("spring.datasource.driver-class-name", "org.h2.Driver");
+        System.setProperty("spring.datasource.username", "sa");
+        System.setProperty("spring.datasource.password", "");
+        System.setProperty("server.port", "0");
+        System.setProperty("resquod.jwt.key-file", keyFile.toString());
+        System.setProperty("logging.level.com.ustudent.resquod.configuration.QueryBudgetFilter", "ERROR");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ResquodApplication.class)
+                .run(options.springArgs.toArray(new String[0]));
+        try {
+            run(context, options);
+        } finally {
+            context.close();
+            Files.deleteIfExists(keyFile);
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, LoadOptions options) throws InterruptedException, IOException {
+        String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        JwtService jwtService = context.getBean(JwtService.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        long seedStart = System.nanoTime();
+        String passwordHash = context.getBean(PasswordHasher.class).encode(Seeder.PASSWORD);
+        Seeder.Dataset dataset = new Seeder(jdbcTemplate, options)
+                .seed(passwordHash, context.getBean(PresenceService.class).isLazyMaterialization());
+        context.getBean(AttendanceStatisticsService.class).reconcile();
+        System.out.printf("Seeded %d students, %d events, %d rooms in %d ms%n", options.students, dataset.eventIds.size(),
+                options.rooms, (System.nanoTime() - seedStart) / 1_000_000);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        ScenarioRunner runner = new ScenarioRunner(client, new StatementCounter(jdbcTemplate), options.concurrency, 500);
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        String[] tokens = new String[options.students];
+        List<HttpRequest> logins = new ArrayList<>();
+        for (String email : dataset.studentEmails) {
+            Map<String, String> credentials = new HashMap<>();
+            credentials.put("email", email);
+            credentials.put("password", Seeder.PASSWORD);
+            logins.add(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                    .timeout(TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(credentials)))
+                    .build());
+        }
+        results.add(runner.run("login-storm", logins, (index, response) -> {
+            try {
+                tokens[index] = objectMapper.readTree(response.body()).get("token").asText();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        // students turned away by the hashing pool still take part in the later scenarios
+        for (int s = 0; s < tokens.length; s++) {
+            if (tokens[s] == null)
+                tokens[s] = jwtService.sign(dataset.studentEmails.get(s), "ROLE_USER");
+        }
+
+        List<HttpRequest> joins = new ArrayList<>();
+        for (int s = 0; s < options.students; s++) {
+            String password = dataset.eventPasswords.get(dataset.eventToJoin(s, options.eventsPerStudent));
+            joins.add(authorized(baseUrl + "/toEvent/" + password, tokens[s])
+                    .POST(HttpRequest.BodyPublishers.noBody()).build());
+        }
+        Collections.shuffle(joins, RANDOM);
+        results.add(runner.run("join-storm", joins));
+
+        List<HttpRequest> taps = new ArrayList<>();
+        for (int s = 0; s < options.students; s++) {
+            int[] events = dataset.memberEvents(s, options.eventsPerStudent);
+            List<String> tags = dataset.eventTags.get(events[RANDOM.nextInt(events.length)]);
+            HttpRequest tap = authorized(baseUrl + "/presenceAtPosition?tagId=" + tags.get(RANDOM.nextInt(tags.size())), tokens[s])
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            taps.add(tap);
+            if (RANDOM.nextInt(100) < options.repeatTapPercent)
+                taps.add(tap);
+        }
+        Collections.shuffle(taps, RANDOM);
+        results.add(runner.run("tap-storm", taps));
+
+        String adminToken = jwtService.sign(Seeder.ADMIN_EMAIL, "ROLE_ADMIN");
+        List<HttpRequest> reports = new ArrayList<>();
+        for (int i = 0; i < options.browseRequests; i++) {
+            int event = RANDOM.nextInt(dataset.eventIds.size());
+            Long eventId = dataset.eventIds.get(event);
+            Long listId = dataset.openListIds.get(event);
+            String studentToken = tokens[RANDOM.nextInt(tokens.length)];
+            switch (i % 8) {
+                case 0:
+                    reports.add(authorized(baseUrl + "/allEvents?limit=100", adminToken).GET().build());
+                    break;
+                case 1:
+                    reports.add(authorized(baseUrl + "/getEventUsers/" + eventId + "?limit=100", adminToken).GET().build());
+                    break;
+                case 2:
+                    reports.add(authorized(baseUrl + "/presence/" + listId, adminToken).GET().build());
+                    break;
+                case 3:
+                    reports.add(authorized(baseUrl + "/absence/" + listId, adminToken).GET().build());
+                    break;
+                case 4:
+                    Long corporationId = dataset.corporationIds.get(RANDOM.nextInt(dataset.corporationIds.size()));
+                    reports.add(authorized(baseUrl + "/corpoRooms?id=" + corporationId, adminToken).GET().build());
+                    break;
+                case 5:
+                    reports.add(authorized(baseUrl + "/attendancelist/" + eventId, adminToken).GET().build());
+                    break;
+                case 6:
+                    reports.add(authorized(baseUrl + "/userPresences", studentToken).GET().build());
+                    break;
+                default:
+                    reports.add(authorized(baseUrl + "/userEvents", studentToken).GET().build());
+            }
+        }
+        String[] etags = new String[reports.size()];
+        results.add(runner.run("report-browsing", reports,
+                (index, response) -> etags[index] = response.headers().firstValue("ETag").orElse(null)));
+
+        // the same browsing again from clients that kept the responses, every ETag-bearing request is conditional
+        List<HttpRequest> revalidations = new ArrayList<>();
+        int conditional = 0;
+        for (int i = 0; i < reports.size(); i++) {
+            HttpRequest report = reports.get(i);
+            HttpRequest.Builder revalidation = HttpRequest.newBuilder(report.uri())
+                    .timeout(TIMEOUT)
+                    .header("Authorization", report.headers().firstValue("Authorization").orElseThrow());
+            if (etags[i] != null) {
+                revalidation.header("If-None-Match", etags[i]);
+                conditional++;
+            }
+            revalidations.add(revalidation.GET().build());
+        }
+        Map<String, Object> revalidation = runner.run("report-revalidation", revalidations);
+        @SuppressWarnings("unchecked")
+        Long notModified = ((Map<String, Long>) revalidation.get("statuses")).getOrDefault("304", 0L);
+        revalidation.put("conditionalRequests", conditional);
+        revalidation.put("notModifiedRate", conditional == 0 ? 0.0 : (double) notModified / conditional);
+        results.add(revalidation);
+
+        List<HttpRequest> exports = new ArrayList<>();
+        for (int i = 0; i < options.exports; i++) {
+            String url = i % 2 == 0
+                    ? baseUrl + "/export/event/" + dataset.eventIds.get(RANDOM.nextInt(dataset.eventIds.size()))
+                    : baseUrl + "/export/corporation/" + dataset.corporationIds.get(RANDOM.nextInt(dataset.corporationIds.size()));
+            exports.add(authorized(url + "?format=csv", adminToken).GET().build());
+        }
+        // bodies are counted and dropped, so the harness itself does not hold the exported rows
+        LongAdder exportedBytes = new LongAdder();
+        HttpResponse.BodyHandler<Void> countingHandler = info -> HttpResponse.BodySubscribers.ofByteArrayConsumer(
+                chunk -> chunk.ifPresent(bytes -> exportedBytes.add(bytes.length)));
+        long heapBefore = HeapSampler.settledHeap();
+        Map<String, Object> export;
+        try (HeapSampler heapSampler = new HeapSampler()) {
+            export = new ScenarioRunner(client, new StatementCounter(jdbcTemplate), options.exportConcurrency, 500)
+                    .run("export", exports, countingHandler, (index, response) -> { });
+            export.put("exportedBytes", exportedBytes.sum());
+            export.put("liveHeapBeforeMb", heapBefore / (1024.0 * 1024));
+            export.put("liveHeapPeakMb", heapSampler.peak() / (1024.0 * 1024));
+        }
+        results.add(export);
+
+        System.out.printf("%-20s %9s %10s %9s %9s %9s %11s %10s  %s%n",
+                "scenario", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "statements", "stmt/req", "statuses");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-20s %9d %10.1f %9.2f %9.2f %9.2f %11d %10.2f  %s%n",
+                    result.get("scenario"), result.get("requests"), result.get("throughputPerSecond"),
+                    result.get("p50Ms"), result.get("p99Ms"), result.get("p999Ms"),
+                    result.get("statements"), result.get("statementsPerRequest"), result.get("statuses"));
+        }
+        System.out.printf("304 hit rate of %d conditional report requests: %.1f%%%n",
+                conditional, 100 * (double) revalidation.get("notModifiedRate"));
+        System.out.printf("Exported %.1f MB, live heap %.1f MB before and %.1f MB at most during the exports%n",
+                exportedBytes.sum() / (1024.0 * 1024), export.get("liveHeapBeforeMb"), export.get("liveHeapPeakMb"));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(options.output), results);
+        System.out.println("Results written to " + options.output);
+    }
+
+    private static HttpRequest.Builder authorized(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+}
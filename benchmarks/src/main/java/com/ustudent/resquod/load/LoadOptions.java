@@ -0,0 +1,55 @@
+package com.ustudent.resquod.load;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Harness settings given as name=value arguments, e.g. students=20000 concurrency=400.
+ * Arguments starting with -- are left for Spring Boot, e.g. --resquod.checkin.async.enabled=true.
+ */
+class LoadOptions {
+
+    int students = 5000;
+    int corporations = 10;
+    int rooms = 200;
+    int positionsPerRoom = 30;
+    int eventsPerStudent = 3;
+    int pastLists = 12;
+    int concurrency = 200;
+    int repeatTapPercent = 10;
+    int browseRequests = 5000;
+    int exports = 100;
+    int exportConcurrency = 4;
+    String output = "load-result.json";
+    final List<String> springArgs = new ArrayList<>();
+
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                options.springArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0)
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            options.set(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        if (options.rooms <= options.eventsPerStudent)
+            throw new IllegalArgumentException("rooms must be larger than eventsPerStudent so every student has an event to join");
+        return options;
+    }
+
+    private void set(String name, String value) {
+        try {
+            Field field = LoadOptions.class.getDeclaredField(name);
+            if (field.getType() == int.class)
+                field.setInt(this, Integer.parseInt(value));
+            else
+                field.set(this, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+}
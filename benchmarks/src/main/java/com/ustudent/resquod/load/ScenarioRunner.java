@@ -0,0 +1,119 @@
+package com.ustudent.resquod.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Sends a scenario's requests from a fixed number of closed-loop workers, each sending its next request
+ * as soon as the previous answer arrives, and records latency per request and statements for the whole run.
+ */
+class ScenarioRunner {
+
+    private static final int IO_ERROR = -1;
+    private static final int TOP_STATEMENTS = 5;
+
+    private final HttpClient client;
+    private final StatementCounter statementCounter;
+    private final int concurrency;
+    private final long settleMillis;
+
+    ScenarioRunner(HttpClient client, StatementCounter statementCounter, int concurrency, long settleMillis) {
+        this.client = client;
+        this.statementCounter = statementCounter;
+        this.concurrency = concurrency;
+        this.settleMillis = settleMillis;
+    }
+
+    Map<String, Object> run(String name, List<HttpRequest> requests) throws InterruptedException {
+        return run(name, requests, (index, response) -> { });
+    }
+
+    /**
+     * The callback gets each successful response with the index of its request.
+     */
+    Map<String, Object> run(String name, List<HttpRequest> requests, BiConsumer<Integer, HttpResponse<String>> onSuccess)
+            throws InterruptedException {
+        return run(name, requests, HttpResponse.BodyHandlers.ofString(), onSuccess);
+    }
+
+    <T> Map<String, Object> run(String name, List<HttpRequest> requests, HttpResponse.BodyHandler<T> bodyHandler,
+                                BiConsumer<Integer, HttpResponse<T>> onSuccess) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(3);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        Map<String, Long> statementsBefore = statementCounter.snapshot();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                for (int i = next.getAndIncrement(); i < requests.size(); i = next.getAndIncrement()) {
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        HttpResponse<T> response = client.send(requests.get(i), bodyHandler);
+                        status = response.statusCode();
+                        if (status / 100 == 2)
+                            onSuccess.accept(i, response);
+                    } catch (IOException e) {
+                        status = IO_ERROR;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+                    statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+        long elapsedNanos = System.nanoTime() - start;
+        Thread.sleep(settleMillis);
+        Map<String, Long> statements = StatementCounter.difference(statementsBefore, statementCounter.snapshot());
+        return result(name, requests.size(), elapsedNanos, latencies, statuses, statements);
+    }
+
+    private static Map<String, Object> result(String name, int requests, long elapsedNanos, Histogram latencies,
+                                              Map<Integer, LongAdder> statuses, Map<String, Long> statements) {
+        long totalStatements = statements.values().stream().mapToLong(Long::longValue).sum();
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status == IO_ERROR ? "io-error" : String.valueOf(status), count.sum()));
+        List<Map<String, Object>> topStatements = new ArrayList<>();
+        statements.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_STATEMENTS)
+                .forEach(entry -> {
+                    Map<String, Object> statement = new LinkedHashMap<>();
+                    statement.put("sql", entry.getKey());
+                    statement.put("executions", entry.getValue());
+                    topStatements.add(statement);
+                });
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", name);
+        result.put("requests", requests);
+        result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.put("throughputPerSecond", requests / (elapsedNanos / 1e9));
+        result.put("p50Ms", latencies.getValueAtPercentile(50) / 1000.0);
+        result.put("p99Ms", latencies.getValueAtPercentile(99) / 1000.0);
+        result.put("p999Ms", latencies.getValueAtPercentile(99.9) / 1000.0);
+        result.put("maxMs", latencies.getMaxValue() / 1000.0);
+        result.put("statuses", statusCounts);
+        result.put("statements", totalStatements);
+        result.put("statementsPerRequest", requests == 0 ? 0.0 : (double) totalStatements / requests);
+        result.put("topStatements", topStatements);
+        return result;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ustudent.resquod.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the empty schema with plain JDBC batches: students spread over events, one event per room,
+ * a semester of closed attendance lists per event and one list open right now, so every tap can check in.
+ */
+class Seeder {
+
+    static final String PASSWORD = "load-test-password";
+    static final String ADMIN_EMAIL = "admin@load.test";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadOptions options;
+
+    Seeder(JdbcTemplate jdbcTemplate, LoadOptions options) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.options = options;
+    }
+
+    Dataset seed(String passwordHash, boolean lazyMaterialization) {
+        Dataset dataset = new Dataset();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        List<Object[]> users = new ArrayList<>();
+        users.add(new Object[]{ADMIN_EMAIL, passwordHash, "ROLE_ADMIN", "Admin", "Load"});
+        for (int s = 0; s < options.students; s++)
+            users.add(new Object[]{studentEmail(s), passwordHash, "ROLE_USER", "Student" + s, "Load"});
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, role, name, surname) VALUES (?, ?, ?, ?, ?)", users);
+        Map<String, Long> userIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, email FROM users", row -> {
+            userIds.put(row.getString(2), row.getLong(1));
+        });
+        Long adminId = userIds.get(ADMIN_EMAIL);
+        for (int s = 0; s < options.students; s++)
+            dataset.studentEmails.add(studentEmail(s));
+
+        List<Object[]> corporations = new ArrayList<>();
+        for (int c = 0; c < options.corporations; c++)
+            corporations.add(new Object[]{"Corporation " + c});
+        jdbcTemplate.batchUpdate("INSERT INTO corporations (name) VALUES (?)", corporations);
+        dataset.corporationIds.addAll(jdbcTemplate.queryForList("SELECT id FROM corporations ORDER BY id", Long.class));
+
+        List<Object[]> rooms = new ArrayList<>();
+        for (int r = 0; r < options.rooms; r++)
+            rooms.add(new Object[]{"Room " + r, dataset.corporationIds.get(r % dataset.corporationIds.size())});
+        jdbcTemplate.batchUpdate("INSERT INTO rooms (name, corporation_id) VALUES (?, ?)", rooms);
+        List<Long> roomIds = jdbcTemplate.queryForList("SELECT id FROM rooms ORDER BY id", Long.class);
+
+        List<Object[]> positions = new ArrayList<>();
+        List<Object[]> events = new ArrayList<>();
+        for (int r = 0; r < roomIds.size(); r++) {
+            List<String> tags = new ArrayList<>();
+            for (int p = 0; p < options.positionsPerRoom; p++) {
+                String tag = "tag-" + r + "-" + p;
+                tags.add(tag);
+                positions.add(new Object[]{p + 1, tag, roomIds.get(r)});
+            }
+            dataset.eventTags.add(tags);
+            dataset.eventPasswords.add("join-" + r);
+            events.add(new Object[]{"Event " + r, adminId, "join-" + r, roomIds.get(r)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO positions (number_of_position, tag_id, room_id) VALUES (?, ?, ?)", positions);
+        jdbcTemplate.batchUpdate("INSERT INTO events (name, administrator_id, password, room_id) VALUES (?, ?, ?, ?)", events);
+        dataset.eventIds.addAll(jdbcTemplate.queryForList("SELECT id FROM events ORDER BY id", Long.class));
+
+        List<Object[]> memberships = new ArrayList<>();
+        for (int s = 0; s < options.students; s++) {
+            for (int e : dataset.memberEvents(s, options.eventsPerStudent))
+                memberships.add(new Object[]{dataset.eventIds.get(e), userIds.get(studentEmail(s))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO events_users (events_id, user_id) VALUES (?, ?)", memberships);
+
+        List<Object[]> lists = new ArrayList<>();
+        LocalDateTime openStart = now.minusMinutes(5);
+        for (Long eventId : dataset.eventIds) {
+            for (int week = options.pastLists; week > 0; week--) {
+                LocalDateTime start = openStart.minusWeeks(week);
+                lists.add(new Object[]{"Week -" + week, Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(90)), eventId});
+            }
+            lists.add(new Object[]{"Today", Timestamp.valueOf(openStart), Timestamp.valueOf(openStart.plusMinutes(90)), eventId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO attendance_lists (name, start_time, end_time, event_id) VALUES (?, ?, ?, ?)", lists);
+        Map<Long, Long> openLists = new HashMap<>();
+        jdbcTemplate.query("SELECT id, event_id FROM attendance_lists WHERE start_time = ?", row -> {
+            openLists.put(row.getLong(2), row.getLong(1));
+        }, Timestamp.valueOf(openStart));
+        for (Long eventId : dataset.eventIds)
+            dataset.openListIds.add(openLists.get(eventId));
+
+        // about four in five past lectures attended, today's list starts empty
+        String attended = "MOD(eu.user_id + a.id, 5) <> 0 AND a.end_time < ?";
+        jdbcTemplate.update("INSERT INTO presences (presence, date, user_id, attendance_list_id) " +
+                        "SELECT " + attended + ", CASE WHEN " + attended + " THEN a.start_time END, eu.user_id, a.id " +
+                        "FROM events_users eu JOIN attendance_lists a ON a.event_id = eu.events_id" +
+                        (lazyMaterialization ? " WHERE " + attended : ""),
+                lazyMaterialization
+                        ? new Object[]{Timestamp.valueOf(now), Timestamp.valueOf(now), Timestamp.valueOf(now)}
+                        : new Object[]{Timestamp.valueOf(now), Timestamp.valueOf(now)});
+        return dataset;
+    }
+
+    static String studentEmail(int student) {
+        return "student" + student + "@load.test";
+    }
+
+    static class Dataset {
+        final List<String> studentEmails = new ArrayList<>();
+        final List<Long> corporationIds = new ArrayList<>();
+        final List<Long> eventIds = new ArrayList<>();
+        final List<Long> openListIds = new ArrayList<>();
+        final List<String> eventPasswords = new ArrayList<>();
+        final List<List<String>> eventTags = new ArrayList<>();
+
+        /**
+         * Event indexes the student is a member of, consecutive so the next index is one they can still join.
+         */
+        int[] memberEvents(int student, int eventsPerStudent) {
+            int[] events = new int[eventsPerStudent];
+            for (int j = 0; j < eventsPerStudent; j++)
+                events[j] = (student * eventsPerStudent + j) % eventIds.size();
+            return events;
+        }
+
+        int eventToJoin(int student, int eventsPerStudent) {
+            return (student * eventsPerStudent + eventsPerStudent) % eventIds.size();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ustudent.resquod.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts statement executions at the database through H2's query statistics, so statements from Hibernate,
+ * JdbcTemplate and the background check-in flush are all included.
+ */
+class StatementCounter {
+
+    private static final String STATISTICS_TABLE = "INFORMATION_SCHEMA.QUERY_STATISTICS";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StatementCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 100000");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> executions = new HashMap<>();
+        jdbcTemplate.query("SELECT SQL_STATEMENT, EXECUTION_COUNT FROM " + STATISTICS_TABLE, row -> {
+            if (!row.getString(1).contains(STATISTICS_TABLE))
+                executions.put(row.getString(1), row.getLong(2));
+        });
+        return executions;
+    }
+
+    /**
+     * Executions per statement between the two snapshots.
+     */
+    static Map<String, Long> difference(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> executions = new HashMap<>();
+        after.forEach((sql, count) -> {
+            long executed = count - before.getOrDefault(sql, 0L);
+            if (executed > 0)
+                executions.put(sql, executed);
+        });
+        return executions;
+    }
+}
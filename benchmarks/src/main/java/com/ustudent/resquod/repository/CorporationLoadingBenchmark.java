@@ -0,0 +1,77 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.benchmarks.H2Application;
+import com.ustudent.resquod.model.Corporation;
+import com.ustudent.resquod.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a room with its corporation in one transaction, the way the permission and listing paths do, against
+ * the application booted on an in-memory H2 database. withMembers=true also walks Corporation.users, which is what
+ * the former EAGER mapping did on every load, so the two modes are the before and after of the lazy mapping.
+ * Run with -prof gc and compare gc.alloc.rate.norm, the bytes allocated per load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorporationLoadingBenchmark {
+
+    @Param({"100", "10000"})
+    private int members;
+
+    @Param({"false", "true"})
+    private boolean withMembers;
+
+    private Path keyFile;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private RoomRepository roomRepository;
+    private Long roomId;
+
+    @Setup
+    public void setUp() throws IOException {
+        keyFile = Files.createTempFile("jwt-signing-keys", null);
+        context = H2Application.start("corporation-loading", keyFile);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        roomRepository = context.getBean(RoomRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO corporations (name) VALUES ('Corporation')");
+        Long corporationId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM corporations", Long.class);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < members; i++)
+            users.add(new Object[]{"member" + i + "@benchmark.test", "password", "ROLE_USER", "Member" + i, "Benchmark"});
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, role, name, surname) VALUES (?, ?, ?, ?, ?)", users);
+        jdbcTemplate.update("INSERT INTO corporations_users (corporations_id, user_id) SELECT ?, id FROM users", corporationId);
+        jdbcTemplate.update("INSERT INTO rooms (name, corporation_id) VALUES ('Room 101', ?)", corporationId);
+        roomId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM rooms", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public Object loadRoomWithCorporation() {
+        return transactionTemplate.execute(status -> {
+            Room room = roomRepository.findById(roomId).orElseThrow();
+            Corporation corporation = room.getCorporation();
+            return withMembers ? corporation.getUsers().size() : corporation.getName();
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.benchmarks.H2Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the absent presences of a new attendance list for every event member, two ways:
+ * batch reads the member ids and inserts one row per member in JDBC batches of 500, as list creation first did,
+ * set inserts them with the single INSERT ... SELECT list creation uses now.
+ * Every operation runs in a transaction that is rolled back, so the presences table keeps its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresenceCreationBenchmark {
+
+    private static final String INSERT_ABSENT_PRESENCE =
+            "INSERT INTO presences (presence, user_id, attendance_list_id) VALUES (false, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"100", "1000", "10000"})
+    private int members;
+
+    @Param({"batch", "set"})
+    private String strategy;
+
+    private Path keyFile;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private EventMembershipRepository eventMembershipRepository;
+    private PresenceBatchRepository presenceBatchRepository;
+    private Long eventId;
+    private Long attendanceListId;
+
+    @Setup
+    public void setUp() throws IOException {
+        keyFile = Files.createTempFile("jwt-signing-keys", null);
+        context = H2Application.start("presence-creation", keyFile);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        eventMembershipRepository = context.getBean(EventMembershipRepository.class);
+        presenceBatchRepository = context.getBean(PresenceBatchRepository.class);
+
+        jdbcTemplate.update("INSERT INTO events (name, password) VALUES ('Lecture', 'join-code')");
+        eventId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM events", Long.class);
+        jdbcTemplate.update("INSERT INTO users (email, password, role, name, surname) " +
+                "SELECT CONCAT('member', x, '@benchmark.test'), 'password', 'ROLE_USER', 'Member', 'Benchmark' " +
+                "FROM SYSTEM_RANGE(1, ?)", members);
+        jdbcTemplate.update("INSERT INTO events_users (events_id, user_id) SELECT ?, id FROM users", eventId);
+        jdbcTemplate.update("INSERT INTO attendance_lists (name, start_time, end_time, event_id) " +
+                "VALUES ('Week 1', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?)", eventId);
+        attendanceListId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM attendance_lists", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public Object createPresences() {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            if (strategy.equals("set"))
+                return presenceBatchRepository.insertAbsentPresencesForEventMembers(attendanceListId, eventId);
+            List<Long> memberIds = eventMembershipRepository.findMemberIds(eventId);
+            return jdbcTemplate.batchUpdate(INSERT_ABSENT_PRESENCE, memberIds, BATCH_SIZE, (ps, userId) -> {
+                ps.setLong(1, userId);
+                ps.setLong(2, attendanceListId);
+            }).length;
+        });
+    }
+}
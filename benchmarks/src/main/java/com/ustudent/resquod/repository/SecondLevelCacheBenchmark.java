@@ -0,0 +1,146 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.benchmarks.H2Application;
+import com.ustudent.resquod.configuration.QueryCounter;
+import com.ustudent.resquod.model.Room;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The reference-data reads of the check-in and listing paths with Hibernate's second-level cache on and off,
+ * each in a transaction of its own so the session cache never answers. checkIn resolves a tag to its room and
+ * loads the room with its corporation, as a TagResolutionCache miss and getRoomById do; corporationRooms reads
+ * a corporation and the first page of its rooms, as /corpoRooms and getCorpoById do.
+ * The RoundTrips counters are totals per iteration, divide them by operations for the statements sent to the
+ * database and the cache hits and puts of one call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+
+    private static final int CORPORATIONS = 10;
+    private static final int ROOMS_PER_CORPORATION = 20;
+    private static final int POSITIONS_PER_ROOM = 30;
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    private final Random random = new Random(42);
+    private Path keyFile;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private PositionRepository positionRepository;
+    private RoomRepository roomRepository;
+    private CorporationRepository corporationRepository;
+    private Statistics statistics;
+    private List<String> tagIds;
+    private List<Long> corporationIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        keyFile = Files.createTempFile("jwt-signing-keys", null);
+        context = H2Application.start("second-level-cache", keyFile,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.generate_statistics=true");
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        positionRepository = context.getBean(PositionRepository.class);
+        roomRepository = context.getBean(RoomRepository.class);
+        corporationRepository = context.getBean(CorporationRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO corporations (name) SELECT CONCAT('Corporation ', x) FROM SYSTEM_RANGE(1, ?)",
+                CORPORATIONS);
+        jdbcTemplate.update("INSERT INTO rooms (name, corporation_id) " +
+                "SELECT CONCAT('Room ', c.id, '-', x), c.id FROM corporations c, SYSTEM_RANGE(1, ?)", ROOMS_PER_CORPORATION);
+        jdbcTemplate.update("INSERT INTO positions (number_of_position, tag_id, room_id) " +
+                "SELECT x, CONCAT('tag-', r.id, '-', x), r.id FROM rooms r, SYSTEM_RANGE(1, ?)", POSITIONS_PER_ROOM);
+        tagIds = jdbcTemplate.queryForList("SELECT tag_id FROM positions", String.class);
+        corporationIds = jdbcTemplate.queryForList("SELECT id FROM corporations", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public Object checkIn(RoundTrips roundTrips) {
+        String tagId = tagIds.get(random.nextInt(tagIds.size()));
+        return count(roundTrips, () -> transactionTemplate.execute(status -> {
+            Long roomId = positionRepository.findRoomIdByTagId(tagId).orElseThrow();
+            Room room = roomRepository.findById(roomId).orElseThrow();
+            return room.getCorporation().getName();
+        }));
+    }
+
+    @Benchmark
+    public Object corporationRooms(RoundTrips roundTrips) {
+        Long corporationId = corporationIds.get(random.nextInt(corporationIds.size()));
+        return count(roundTrips, () -> transactionTemplate.execute(status -> {
+            corporationRepository.findById(corporationId).orElseThrow();
+            return roomRepository.findRoomDTOsByCorporationId(corporationId, 0L, PageRequest.of(0, 101));
+        }));
+    }
+
+    private Object count(RoundTrips roundTrips, Supplier<Object> call) {
+        long entityHits = statistics.getSecondLevelCacheHitCount();
+        long entityPuts = statistics.getSecondLevelCachePutCount();
+        long queryHits = statistics.getQueryCacheHitCount();
+        long queryPuts = statistics.getQueryCachePutCount();
+        QueryCounter.start();
+        Object result;
+        try {
+            result = call.get();
+        } finally {
+            roundTrips.statements += QueryCounter.stop();
+        }
+        roundTrips.operations++;
+        roundTrips.entityCacheHits += statistics.getSecondLevelCacheHitCount() - entityHits;
+        roundTrips.entityCachePuts += statistics.getSecondLevelCachePutCount() - entityPuts;
+        roundTrips.queryCacheHits += statistics.getQueryCacheHitCount() - queryHits;
+        roundTrips.queryCachePuts += statistics.getQueryCachePutCount() - queryPuts;
+        return result;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long operations;
+        public long statements;
+        public long entityCacheHits;
+        public long entityCachePuts;
+        public long queryCacheHits;
+        public long queryCachePuts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            operations = 0;
+            statements = 0;
+            entityCacheHits = 0;
+            entityCachePuts = 0;
+            queryCacheHits = 0;
+            queryCachePuts = 0;
+        }
+    }
+}
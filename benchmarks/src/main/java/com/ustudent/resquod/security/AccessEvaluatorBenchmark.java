@@ -0,0 +1,50 @@
+package com.ustudent.resquod.security;
+
+import com.ustudent.resquod.benchmarks.Stubs;
+import com.ustudent.resquod.repository.CorporationRepository;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks answered from the cached principal, the path every authorized request takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessEvaluatorBenchmark {
+
+    private static final String EMAIL = "anna.nowak@test.pl";
+
+    private PrincipalCache principalCache;
+    private AccessEvaluator accessEvaluator;
+
+    @Setup
+    public void setUp() {
+        principalCache = new PrincipalCache(
+                Stubs.of(UserRepository.class, Map.of("findPrincipalByEmail",
+                        args -> Optional.of(new AuthenticatedUser(1L, EMAIL, "ROLE_OWNER")))),
+                Stubs.of(CorporationRepository.class, Map.of("findIdsByUserId", args -> Arrays.asList(1L, 2L))),
+                Stubs.of(EventRepository.class, Map.of("findIdsByAdministratorId", args -> Arrays.asList(3L, 4L, 5L))),
+                new VerifiedTokenCache(60, 10000), 60, 10000);
+        accessEvaluator = new AccessEvaluator(principalCache);
+    }
+
+    @Benchmark
+    public boolean canManageCorporation() {
+        return accessEvaluator.canManageCorporation(principalCache.get(EMAIL), 2L);
+    }
+
+    @Benchmark
+    public boolean canManageEvent() {
+        return accessEvaluator.canManageEvent(principalCache.get(EMAIL), 9L, () -> 1L);
+    }
+}
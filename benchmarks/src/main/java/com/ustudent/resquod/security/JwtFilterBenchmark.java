@@ -0,0 +1,85 @@
+package com.ustudent.resquod.security;
+
+import com.ustudent.resquod.benchmarks.Stubs;
+import com.ustudent.resquod.repository.CorporationRepository;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.repository.UserRepository;
+import com.ustudent.resquod.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole JwtFilter pass for a request: a token already in the VerifiedTokenCache, and a token that has to be
+ * verified again with the principal coming from the PrincipalCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String EMAIL = "jan.kowalski@test.pl";
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    private Path keyFile;
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtFilter jwtFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws IOException {
+        keyFile = Files.createTempFile("jwt-signing-keys", null);
+        verifiedTokenCache = new VerifiedTokenCache(60, 10000);
+        JwtService jwtService = new JwtService(new SigningKeyRing(keyFile.toString(), 24, 8, verifiedTokenCache));
+        PrincipalCache principalCache = new PrincipalCache(
+                Stubs.of(UserRepository.class, Map.of("findPrincipalByEmail",
+                        args -> Optional.of(new AuthenticatedUser(1L, EMAIL, "ROLE_USER")))),
+                Stubs.of(CorporationRepository.class, Map.of("findIdsByUserId", args -> Arrays.asList(1L, 2L))),
+                Stubs.of(EventRepository.class, Map.of("findIdsByAdministratorId", args -> Arrays.asList(3L, 4L, 5L))),
+                verifiedTokenCache, 60, 10000);
+        jwtFilter = new JwtFilter(authentication -> authentication);
+        ReflectionTestUtils.setField(jwtFilter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(jwtFilter, "principalCache", principalCache);
+        ReflectionTestUtils.setField(jwtFilter, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(jwtFilter, "meterRegistry", new SimpleMeterRegistry());
+        request = new MockHttpServletRequest("GET", "/userEvents");
+        request.addHeader("authorization", "Bearer " + jwtService.sign(EMAIL, "ROLE_USER"));
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SecurityContextHolder.clearContext();
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public Object cachedToken() throws IOException, ServletException {
+        jwtFilter.doFilter(request, response, CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object verifiedToken() throws IOException, ServletException {
+        verifiedTokenCache.invalidateAll();
+        jwtFilter.doFilter(request, response, CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.benchmarks.Stubs;
+import com.ustudent.resquod.model.AttendanceList;
+import com.ustudent.resquod.model.Corporation;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.Room;
+import com.ustudent.resquod.model.dao.AttendanceListEventData;
+import com.ustudent.resquod.repository.AttendanceListRepository;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO assembly in getAttendanceListEvent with the repositories answering from memory, so only the mapping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttendanceListServiceBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int lists;
+
+    private AttendanceListService attendanceListService;
+
+    @Setup
+    public void setUp() {
+        Corporation corporation = new Corporation("Corporation");
+        corporation.setId(1L);
+        Room room = new Room();
+        room.setId(1L);
+        room.setName("Room 101");
+        room.setCorporation(corporation);
+        Event event = new Event();
+        event.setId(1L);
+        event.setName("Algorithms");
+        event.setPassword("password");
+        event.setRoom(room);
+        List<AttendanceList> attendanceLists = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2020, 3, 2, 8, 0);
+        for (int i = 0; i < lists; i++) {
+            AttendanceList attendanceList = new AttendanceList();
+            attendanceList.setId((long) i);
+            attendanceList.setName("Lecture " + i);
+            attendanceList.setEvent(event);
+            attendanceList.setStartTime(start.plusWeeks(i));
+            attendanceList.setEndTime(start.plusWeeks(i).plusMinutes(90));
+            attendanceLists.add(attendanceList);
+        }
+        EventRepository eventRepository = Stubs.of(EventRepository.class, Map.of("findById", args -> Optional.of(event)));
+        AttendanceListRepository attendanceListRepository = Stubs.of(AttendanceListRepository.class,
+                Map.of("findByEventId", args -> attendanceLists));
+        AuthenticatedUser administrator = new AuthenticatedUser(1L, "anna.nowak@test.pl", "ROLE_USER", Set.of(), Set.of(1L));
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(administrator, null, List.of()));
+        attendanceListService = new AttendanceListService(attendanceListRepository, null, eventRepository,
+                null, null, null, null, new AccessEvaluator(null), null, null, null, null);
+    }
+
+    @Benchmark
+    public List<AttendanceListEventData> getAttendanceListEvent() {
+        return attendanceListService.getAttendanceListEvent(1L);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ustudent.resquod.service;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.ustudent.resquod.security.SigningKeyRing;
+import com.ustudent.resquod.security.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private Path keyFile;
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() throws IOException {
+        keyFile = Files.createTempFile("jwt-signing-keys", null);
+        SigningKeyRing keyRing = new SigningKeyRing(keyFile.toString(), 24, 8, new VerifiedTokenCache(60, 10000));
+        jwtService = new JwtService(keyRing);
+        token = jwtService.sign("jan.kowalski@test.pl", "ROLE_USER");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.sign("jan.kowalski@test.pl", "ROLE_USER");
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return jwtService.verify(token);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ustudent.resquod.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt at the costs a login may run with, straight on the encoder and through PasswordHasher's pool,
+ * the difference being the hand-off to the hashing thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    private int cost;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHasher passwordHasher;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(cost);
+        passwordHasher = new PasswordHasher(cost, 100, 1, 100, 60000, new SimpleMeterRegistry());
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Benchmark
+    public boolean encoderMatches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean hasherMatches() {
+        return passwordHasher.matches(PASSWORD, hash);
+    }
+}
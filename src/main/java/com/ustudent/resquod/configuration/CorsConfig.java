@@ -15,6 +15,7 @@ public class CorsConfig implements WebMvcConfigurer {
                         "Access-Control-Allow-Credentials",
                         "Content-Type",
                         "Authorization")
+                .exposedHeaders("X-Next-Cursor")
                 .allowCredentials(true);
     }
 }
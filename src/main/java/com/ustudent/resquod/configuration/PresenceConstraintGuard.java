@@ -0,0 +1,139 @@
+package com.ustudent.resquod.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Prepares the presences table for its unique (user_id, attendance_list_id) constraint. Hibernate only logs
+ * a failed ALTER TABLE, so duplicate presences are dealt with before it updates the schema: by default startup
+ * fails and reports them, with resquod.presence.delete-duplicates-on-startup=true they are copied to
+ * presences_duplicates and deleted in one transaction, keeping the row with the earliest check-in, otherwise
+ * the lowest id. Once the context is up, startup fails if the constraint is still missing instead of running without it.
+ */
+@Component
+public class PresenceConstraintGuard implements InitializingBean, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceConstraintGuard.class);
+    private static final String TABLE = "presences";
+    private static final Set<String> CONSTRAINT_COLUMNS = new HashSet<>(Arrays.asList("user_id", "attendance_list_id"));
+
+    private static final String SELECT_DUPLICATES =
+            "SELECT p.id, p.user_id, p.attendance_list_id FROM presences p " +
+            "JOIN (SELECT user_id, attendance_list_id FROM presences " +
+            "GROUP BY user_id, attendance_list_id HAVING COUNT(*) > 1) d " +
+            "ON d.user_id = p.user_id AND d.attendance_list_id = p.attendance_list_id " +
+            "ORDER BY p.user_id, p.attendance_list_id, p.presence DESC, " +
+            "CASE WHEN p.date IS NULL THEN 1 ELSE 0 END, p.date, p.id";
+
+    private static final String CREATE_BACKUP =
+            "CREATE TABLE IF NOT EXISTS presences_duplicates AS SELECT * FROM presences WHERE 1 = 0";
+
+    private static final String BACKUP_PRESENCE = "INSERT INTO presences_duplicates SELECT * FROM presences WHERE id = ?";
+
+    private static final String DELETE_PRESENCE = "DELETE FROM presences WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean deleteDuplicates;
+
+    @Autowired
+    public PresenceConstraintGuard(JdbcTemplate jdbcTemplate,
+                                   @Value("${resquod.presence.delete-duplicates-on-startup:false}") boolean deleteDuplicates) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deleteDuplicates = deleteDuplicates;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                findTable(connection.getMetaData(), connection.getCatalog()) != null)) || constraintExists())
+            return;
+        List<Long> duplicates = new ArrayList<>();
+        long[] previous = {-1, -1};
+        jdbcTemplate.query(SELECT_DUPLICATES, row -> {
+            long userId = row.getLong(2);
+            long attendanceListId = row.getLong(3);
+            if (userId == previous[0] && attendanceListId == previous[1])
+                duplicates.add(row.getLong(1));
+            previous[0] = userId;
+            previous[1] = attendanceListId;
+        });
+        if (duplicates.isEmpty())
+            return;
+        if (!deleteDuplicates)
+            throw new IllegalStateException(duplicates.size() + " duplicate presences prevent the unique "
+                    + "(user_id, attendance_list_id) constraint, first presence ids "
+                    + duplicates.subList(0, Math.min(duplicates.size(), 20)) + ". Remove them or start "
+                    + "once with resquod.presence.delete-duplicates-on-startup=true to move them to presences_duplicates");
+        // MariaDB commits DDL implicitly, so the backup table is created before the transaction
+        jdbcTemplate.execute(CREATE_BACKUP);
+        new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(BACKUP_PRESENCE, duplicates, 500, (ps, id) -> ps.setLong(1, id));
+            jdbcTemplate.batchUpdate(DELETE_PRESENCE, duplicates, 500, (ps, id) -> ps.setLong(1, id));
+        });
+        log.warn("Moved {} duplicate presences to presences_duplicates before adding the unique (user_id, attendance_list_id) "
+                + "constraint, the attendance statistics are corrected by the next reconciliation", duplicates.size());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!constraintExists())
+            throw new IllegalStateException("The presences table has no unique (user_id, attendance_list_id) constraint, "
+                    + "check-ins and lazy materialization rely on it");
+    }
+
+    private boolean constraintExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                hasConstraint(connection.getMetaData(), connection.getCatalog())));
+    }
+
+    private static String findTable(DatabaseMetaData metaData, String catalog) throws SQLException {
+        for (String name : Arrays.asList(TABLE, TABLE.toUpperCase())) {
+            try (ResultSet tables = metaData.getTables(catalog, null, name, new String[]{"TABLE"})) {
+                if (tables.next())
+                    return tables.getString("TABLE_NAME");
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasConstraint(DatabaseMetaData metaData, String catalog) throws SQLException {
+        String table = findTable(metaData, catalog);
+        if (table == null)
+            return false;
+        Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+        try (ResultSet indexes = metaData.getIndexInfo(catalog, null, table, true, false)) {
+            while (indexes.next()) {
+                String column = indexes.getString("COLUMN_NAME");
+                if (column != null)
+                    uniqueIndexes.computeIfAbsent(indexes.getString("INDEX_NAME"), name -> new HashSet<>())
+                            .add(column.toLowerCase());
+            }
+        }
+        return uniqueIndexes.containsValue(CONSTRAINT_COLUMNS);
+    }
+
+    /**
+     * Makes the entity manager factory, and with it Hibernate's schema update, wait for the duplicates to be handled.
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnGuard extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependsOnGuard() {
+            super("presenceConstraintGuard");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ustudent.resquod.configuration;
+
+import com.ustudent.resquod.exception.QueryBudgetExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the statements each request runs, including lazy loads during serialization, records them as
+ * resquod.http.queries per endpoint pattern and checks them against the endpoint's budget.
+ * Budgets come from resquod.query-budget.endpoints as "pattern=budget" pairs, other endpoints use the default,
+ * a budget of 0 means unlimited. Over budget the request is logged in "log" mode; in "fail" mode a
+ * QueryBudgetExceededException is thrown, meant for tests and staging since the response may already be committed.
+ */
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+    private static final String OFF = "off";
+    private static final String FAIL = "fail";
+
+    private final MeterRegistry meterRegistry;
+    private final String mode;
+    private final int defaultBudget;
+    private final Map<String, Integer> budgets = new HashMap<>();
+
+    @Autowired
+    public QueryBudgetFilter(MeterRegistry meterRegistry,
+                             @Value("${resquod.query-budget.mode:log}") String mode,
+                             @Value("${resquod.query-budget.default:0}") int defaultBudget,
+                             @Value("${resquod.query-budget.endpoints:}") String[] endpoints) {
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.defaultBudget = defaultBudget;
+        for (String endpoint : endpoints) {
+            int separator = endpoint.lastIndexOf('=');
+            if (separator > 0)
+                budgets.put(endpoint.substring(0, separator).trim(), Integer.parseInt(endpoint.substring(separator + 1).trim()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return OFF.equals(mode);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        int statements;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements = QueryCounter.stop();
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? "UNKNOWN" : pattern.toString();
+        meterRegistry.summary("resquod.http.queries", "uri", endpoint).record(statements);
+        int budget = budgets.getOrDefault(endpoint, defaultBudget);
+        if (budget <= 0 || statements <= budget)
+            return;
+        String message = request.getMethod() + " " + endpoint + " ran " + statements + " statements, budget is " + budget;
+        if (FAIL.equals(mode))
+            throw new QueryBudgetExceededException(message);
+        log.warn(message);
+    }
+}
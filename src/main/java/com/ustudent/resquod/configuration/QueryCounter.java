@@ -0,0 +1,55 @@
+package com.ustudent.resquod.configuration;
+
+/**
+ * Counts the SQL statements run on the current thread between start() and stop().
+ * Counts nest: an inner count is added to the enclosing one when it stops, so a test can wrap a
+ * request that the QueryBudgetFilter is counting as well.
+ * Statements are recorded by {@link QueryCountingDataSource}, so Hibernate and JdbcTemplate statements are both seen.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Count> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void record() {
+        Count count = CURRENT.get();
+        if (count != null)
+            count.statements++;
+    }
+
+    public static void start() {
+        CURRENT.set(new Count(CURRENT.get()));
+    }
+
+    /**
+     * Statements counted since the innermost start(), zero when nothing is being counted.
+     */
+    public static int count() {
+        Count count = CURRENT.get();
+        return count == null ? 0 : count.statements;
+    }
+
+    public static int stop() {
+        Count count = CURRENT.get();
+        if (count == null)
+            return 0;
+        if (count.parent == null) {
+            CURRENT.remove();
+        } else {
+            count.parent.statements += count.statements;
+            CURRENT.set(count.parent);
+        }
+        return count.statements;
+    }
+
+    private static final class Count {
+        private final Count parent;
+        private int statements;
+
+        private Count(Count parent) {
+            this.parent = parent;
+        }
+    }
+}
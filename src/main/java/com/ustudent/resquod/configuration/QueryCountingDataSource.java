@@ -0,0 +1,122 @@
+package com.ustudent.resquod.configuration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Records every statement execution on the application's connections with {@link QueryCounter}, whoever runs it:
+ * Hibernate, JdbcTemplate or a plain JDBC call. An executeBatch is one round trip and counts once.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConnectionHandler(target));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return target;
+                case "createStatement":
+                    return countingStatement(Statement.class, QueryCountingDataSource.invoke(target, method, args), proxy);
+                case "prepareStatement":
+                    return countingStatement(PreparedStatement.class, QueryCountingDataSource.invoke(target, method, args), proxy);
+                case "prepareCall":
+                    return countingStatement(CallableStatement.class, QueryCountingDataSource.invoke(target, method, args), proxy);
+                default:
+                    return QueryCountingDataSource.invoke(target, method, args);
+            }
+        }
+
+        private static Object countingStatement(Class<? extends Statement> type, Object target, Object connection) {
+            return Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler((Statement) target, connection));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Object connection;
+
+        private StatementHandler(Statement target, Object connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals"))
+                return proxy == args[0];
+            if (name.equals("hashCode"))
+                return System.identityHashCode(proxy);
+            if (name.equals("getConnection"))
+                return connection;
+            if (name.startsWith("execute"))
+                QueryCounter.record();
+            return QueryCountingDataSource.invoke(target, method, args);
+        }
+    }
+
+    /**
+     * Wraps the application's DataSource, the one Hibernate, JdbcTemplate and the transaction managers share.
+     * The pools behind it are left alone, so a routed statement is not counted twice.
+     */
+    @Component
+    static class Registration implements BeanPostProcessor {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && bean instanceof DataSource && !(bean instanceof QueryCountingDataSource))
+                return new QueryCountingDataSource((DataSource) bean);
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ustudent.resquod.configuration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets the read-only transaction of the annotated method run on a replica when replicas are configured.
+ * Read-only transactions without it, like the ones Spring Data opens for repository reads, stay on the primary.
+ * A body answered under a VersionRegistry ETag must be read through VersionRegistry.readIfModified, which compares
+ * the version in the same transaction, otherwise the version comes from the primary and the body from a replica.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadReplica {
+}
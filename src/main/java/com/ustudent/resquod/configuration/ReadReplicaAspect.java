@@ -0,0 +1,22 @@
+package com.ustudent.resquod.configuration;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ReadReplicaAspect {
+
+    @Around("@annotation(com.ustudent.resquod.configuration.ReadReplica)")
+    public Object allowReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean outermost = ReplicaRoutingDataSource.beginReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (outermost)
+                ReplicaRoutingDataSource.endReplicaRead();
+        }
+    }
+}
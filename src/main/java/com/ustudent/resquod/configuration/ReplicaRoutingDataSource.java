@@ -0,0 +1,176 @@
+package com.ustudent.resquod.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections to read-only transactions of {@link ReadReplica} methods and primary
+ * connections to everything else. A user who has just committed a write reads from the primary for
+ * read-your-writes-ms, so they see their own change before the replicas catch up.
+ * A replica that fails a connection or a health check is skipped until a later check passes.
+ * The routing happens when the connection is first used, so it must sit behind a LazyConnectionDataSourceProxy.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long readYourWritesNanos;
+    private final int validationTimeoutSeconds;
+    private final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                    long readYourWritesMillis, int validationTimeoutSeconds) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++)
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMillis);
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Returns true when this call opened the replica read, only that call may end it.
+     */
+    public static boolean beginReplicaRead() {
+        if (REPLICA_READ.get() != null)
+            return false;
+        REPLICA_READ.set(Boolean.TRUE);
+        return true;
+    }
+
+    public static void endReplicaRead() {
+        REPLICA_READ.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Re-validates every replica and forgets writes older than the read-your-writes window.
+     */
+    @Scheduled(fixedDelayString = "${resquod.datasource.replica-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds))
+                    markUp(replica);
+                else
+                    markDown(replica, null);
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(written -> now - written >= readYourWritesNanos);
+    }
+
+    public int getHealthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    private Replica route() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || REPLICA_READ.get() == null) {
+            recordWriteAfterCommit(user);
+            return null;
+        }
+        if (user != null) {
+            Long written = lastWrites.get(user);
+            if (written != null && System.nanoTime() - written < readYourWritesNanos)
+                return null;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy)
+                return replica;
+        }
+        return null;
+    }
+
+    private void recordWriteAfterCommit(String user) {
+        if (user == null || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                lastWrites.put(user, System.nanoTime());
+            }
+        });
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    private void markUp(Replica replica) {
+        if (!replica.healthy) {
+            replica.healthy = true;
+            log.info("Replica {} is back, routing reads to it again", replica.name);
+        }
+    }
+
+    private void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica {} is unavailable, reading from the primary until it recovers", replica.name, cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable)
+                ((Closeable) replica.dataSource).close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ustudent.resquod.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call into the repository package, Spring Data interfaces and the JDBC batch repositories alike,
+ * as resquod.repository tagged with the repository, the method and the outcome.
+ * The timers are looked up once per repository method and then reused.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.ustudent.resquod.repository.";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, Timers>> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.ustudent.resquod.repository..*) || this(org.springframework.data.repository.Repository)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timers methodTimers = timers
+                .computeIfAbsent(joinPoint.getThis().getClass(), type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                        method -> new Timers(repositoryName(joinPoint.getThis()), method.getName()));
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodTimers.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            methodTimers.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : ClassUtils.getAllInterfaces(proxy))
+            if (type.getName().startsWith(REPOSITORY_PACKAGE))
+                return type.getSimpleName();
+        return ClassUtils.getUserClass(proxy).getSimpleName();
+    }
+
+    private final class Timers {
+        private final Timer success;
+        private final Timer error;
+
+        private Timers(String repository, String method) {
+            this.success = timer(repository, method, "success");
+            this.error = timer(repository, method, "error");
+        }
+
+        private Timer timer(String repository, String method, String outcome) {
+            return Timer.builder("resquod.repository")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ustudent.resquod.controller;
+
+import com.ustudent.resquod.exception.*;
+import com.ustudent.resquod.service.AttendanceExportService;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@RestController
+@Api(value = "Attendance Export")
+public class AttendanceExportController {
+
+    private final AttendanceExportService attendanceExportService;
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final long timeoutMillis;
+
+    @Autowired
+    public AttendanceExportController(AttendanceExportService attendanceExportService,
+                                      @Value("${resquod.export.threads:4}") int threads,
+                                      @Value("${resquod.export.queue-capacity:100}") int queueCapacity,
+                                      @Value("${resquod.export.timeout-ms:3600000}") long timeoutMillis) {
+        this.attendanceExportService = attendanceExportService;
+        this.timeoutMillis = timeoutMillis;
+        this.exportExecutor = new ThreadPoolTaskExecutor();
+        exportExecutor.setCorePoolSize(threads);
+        exportExecutor.setMaxPoolSize(threads);
+        exportExecutor.setQueueCapacity(queueCapacity);
+        exportExecutor.setThreadNamePrefix("export-");
+        exportExecutor.initialize();
+    }
+
+    @ApiOperation(value = "Streams the attendance of every list of the event as CSV or JSON Lines", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "\"Event not found!\" or \"You are not the administrator of this event!\" or \"Unknown export format!\""),
+            @ApiResponse(code = 500, message = "Server Error!")})
+    @GetMapping(value = "/export/event/{eventId}")
+    public ResponseEntity<StreamingResponseBody> exportEvent(
+            @ApiParam(value = "Required event ID", required = true) @PathVariable Long eventId,
+            @ApiParam(value = "csv or jsonl") @RequestParam(defaultValue = AttendanceExportService.CSV) String format,
+            HttpServletRequest request, HttpServletResponse response) {
+        try {
+            StreamingResponseBody body = attendanceExportService.exportEvent(eventId, format);
+            streamOnExportPool(request, response);
+            return attachment("event-" + eventId, format, body);
+        } catch (EventNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event not found!");
+        } catch (PermissionDeniedException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are not the administrator of this event!");
+        } catch (InvalidInputException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format!");
+        }
+    }
+
+    @ApiOperation(value = "Streams the attendance of every event of the corporation as CSV or JSON Lines", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "\"Permission denied!\" or \"Unknown export format!\""),
+            @ApiResponse(code = 500, message = "Server Error!")})
+    @GetMapping(value = "/export/corporation/{corporationId}")
+    public ResponseEntity<StreamingResponseBody> exportCorporation(
+            @ApiParam(value = "Required corporation ID", required = true) @PathVariable Long corporationId,
+            @ApiParam(value = "csv or jsonl") @RequestParam(defaultValue = AttendanceExportService.CSV) String format,
+            HttpServletRequest request, HttpServletResponse response) {
+        try {
+            StreamingResponseBody body = attendanceExportService.exportCorporation(corporationId, format);
+            streamOnExportPool(request, response);
+            return attachment("corporation-" + corporationId, format, body);
+        } catch (PermissionDeniedException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Permission denied!");
+        } catch (InvalidInputException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format!");
+        }
+    }
+
+    /**
+     * Exports stream on their own pool with their own timeout, the other async requests keep the MVC defaults.
+     * Each export holds a database connection until it is written out, so the pool size caps the connections
+     * exports can take.
+     */
+    private void streamOnExportPool(HttpServletRequest request, HttpServletResponse response) {
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.createAsyncWebRequest(request, response);
+        asyncWebRequest.setTimeout(timeoutMillis);
+        asyncManager.setAsyncWebRequest(asyncWebRequest);
+        asyncManager.setTaskExecutor(exportExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdown();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, String format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(AttendanceExportService.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"attendance-" + name + "." + format + "\"")
+                .body(body);
+    }
+}
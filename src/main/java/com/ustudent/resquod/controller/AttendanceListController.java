@@ -2,20 +2,30 @@ package com.ustudent.resquod.controller;
 
 import com.ustudent.resquod.exception.*;
 import com.ustudent.resquod.model.AttendanceList;
+import com.ustudent.resquod.model.dao.AttendanceListCreationResult;
 import com.ustudent.resquod.model.dao.AttendanceListData;
 import com.ustudent.resquod.model.dao.AttendanceListEventData;
 import com.ustudent.resquod.model.dao.ResponseTransfer;
 import com.ustudent.resquod.model.dao.UserData;
 import com.ustudent.resquod.service.AttendanceListService;
+import com.ustudent.resquod.service.KeysetPagination;
+import com.ustudent.resquod.service.VersionRegistry;
+import com.ustudent.resquod.security.AuthenticatedUser;
+import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import io.swagger.annotations.Authorization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 
@@ -23,10 +33,12 @@ import java.util.List;
 public class AttendanceListController {
 
     private final AttendanceListService attendanceListService;
+    private final VersionRegistry versionRegistry;
 
     @Autowired
-    public AttendanceListController(AttendanceListService attendanceListService) {
+    public AttendanceListController(AttendanceListService attendanceListService, VersionRegistry versionRegistry) {
         this.attendanceListService = attendanceListService;
+        this.versionRegistry = versionRegistry;
     }
 
     @ApiOperation(value = "Creates attendance list for specified event", authorizations = {@Authorization(value = "authkey")})
@@ -37,12 +49,24 @@ public class AttendanceListController {
     })
     @PostMapping("/attendancelist")
     public ResponseTransfer createAttendanceList(@RequestBody HashSet<AttendanceListData> attendanceRequest){
-        try {
-            for (AttendanceListData attList:attendanceRequest) {
-                attendanceListService.createAttendanceList(attList);
-            }
-            return new ResponseTransfer("AttendanceList created!");
+        createAttendanceListsInBulk(attendanceRequest);
+        return new ResponseTransfer("AttendanceList created!");
+    }
+
+    @ApiOperation(value = "Creates attendance lists for specified events in one transaction and returns per-list results", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Attendance Lists Created!"),
+            @ApiResponse(code = 400, message = "Error while creating lists or Event not found."),
+            @ApiResponse(code = 500, message = "Server Error!")
+    })
+    @PostMapping("/attendancelists")
+    public List<AttendanceListCreationResult> createAttendanceLists(@RequestBody List<AttendanceListData> attendanceRequest){
+        return createAttendanceListsInBulk(attendanceRequest);
+    }
 
+    private List<AttendanceListCreationResult> createAttendanceListsInBulk(Collection<AttendanceListData> attendanceRequest) {
+        try {
+            return attendanceListService.createAttendanceLists(attendanceRequest);
         }
         catch(PermissionDeniedException ex){
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error while creating list. Permission denied.");
@@ -53,21 +77,32 @@ public class AttendanceListController {
         catch(UserNotFoundException ex){
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error while creating list. User not found.");
         }
+        catch(WrongTimeFrameException ex){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error while creating list. Wrong time frame.");
+        }
+        catch(InvalidInputException ex){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error while creating list. Invalid input.");
+        }
     }
 
     @ApiOperation(value = "Returns attendance list for specified event", authorizations = {@Authorization(value = "authkey")})
     @ApiResponses(value = {
-            @ApiResponse(code = 400, message = "Bad request"),
+            @ApiResponse(code = 400, message = "\"Bad request\" or \"You are not the administrator of this event!\""),
             @ApiResponse(code = 404, message = "\"Event not found!\" or \"Attendance lists for this event not found!\""),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping("/attendancelist/{eventId}")
-    public List<AttendanceListEventData> getAttendanceList(@PathVariable(value="eventId") Long eventId) {
+    public List<AttendanceListEventData> getAttendanceList(@PathVariable(value="eventId") Long eventId, WebRequest request) {
         try {
+            attendanceListService.checkEventListsAccess(eventId);
+            if (VersionRegistry.notModified(request, versionRegistry.etag(VersionRegistry.EVENT, eventId)))
+                return null;
             return attendanceListService.getAttendanceListEvent(eventId);
         } catch (EventNotFoundException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event not found!");
         } catch (ObjectNotFoundException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Attendance lists for this event not found!");
+        } catch (PermissionDeniedException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are not the administrator of this event!");
         }
     }
 
@@ -84,6 +119,24 @@ public class AttendanceListController {
         }
     }
 
+    @ApiOperation(value = "Streams a snapshot of the present users and then every check-in of the Attendance List as Server-Sent Events", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "\"Attendance list not found! Bad request\" or \"You are not the administrator of this event!\""),
+            @ApiResponse(code = 503, message = "Too many live subscribers, try again later!"),
+            @ApiResponse(code = 500, message = "Server Error!")})
+    @GetMapping(value = "/presence/{attendanceListId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getLivePresences(@PathVariable(value="attendanceListId") Long attendanceListId){
+        try {
+            return attendanceListService.subscribeToPresences(attendanceListId);
+        } catch (AttendanceListNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Attendance list not found! Bad request");
+        } catch (PermissionDeniedException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are not the administrator of this event!");
+        } catch (TooManySubscribersException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many live subscribers, try again later!");
+        }
+    }
+
     @ApiOperation(value = "Returns absent users data from specified Attendance List", authorizations = {@Authorization(value = "authkey")})
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad request"),
             @ApiResponse(code = 500, message = "Server Error!")})
@@ -101,10 +154,15 @@ public class AttendanceListController {
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad request"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/userAttendanceLists")
-    public List<AttendanceListData> getUserAttendanceLists() {
+    public List<AttendanceListData> getUserAttendanceLists(
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response, WebRequest request) {
+        if (VersionRegistry.notModified(request, versionRegistry.etag(VersionRegistry.USER, AuthenticatedUser.current().getId())))
+            return null;
         try {
-            return attendanceListService.findUserAttendanceLists();
-        } catch (EmailExistException ex) {
+            return KeysetPagination.respond(attendanceListService.findUserAttendanceLists(cursor, limit), response);
+        } catch (EmailExistException | InvalidInputException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
         }
     }
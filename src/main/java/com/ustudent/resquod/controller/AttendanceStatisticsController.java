@@ -0,0 +1,83 @@
+package com.ustudent.resquod.controller;
+
+import com.ustudent.resquod.exception.*;
+import com.ustudent.resquod.model.dao.ListAttendanceStatistics;
+import com.ustudent.resquod.model.dao.StatisticsReconciliation;
+import com.ustudent.resquod.model.dao.UserAttendanceStatistics;
+import com.ustudent.resquod.service.AttendanceStatisticsService;
+import com.ustudent.resquod.service.KeysetPagination;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+@RestController
+@Api(value = "Attendance Statistics")
+public class AttendanceStatisticsController {
+
+    private final AttendanceStatisticsService attendanceStatisticsService;
+
+    @Autowired
+    public AttendanceStatisticsController(AttendanceStatisticsService attendanceStatisticsService) {
+        this.attendanceStatisticsService = attendanceStatisticsService;
+    }
+
+    @ApiOperation(value = "Returns the current user's attendance rate in the event", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "You do not belong to this event!"),
+            @ApiResponse(code = 500, message = "Server Error!")})
+    @GetMapping(value = "/attendanceStats/event/{eventId}")
+    public UserAttendanceStatistics getUserStatistics(@ApiParam(value = "Required event ID", required = true)
+                                                      @PathVariable Long eventId) {
+        try {
+            return attendanceStatisticsService.getUserStatistics(eventId);
+        } catch (ObjectNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You do not belong to this event!");
+        }
+    }
+
+    @ApiOperation(value = "Returns the attendance rate of every member of the event", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "\"Event not found!\" or \"You are not the administrator of this event!\" or \"Bad request\""),
+            @ApiResponse(code = 500, message = "Server Error!")})
+    @GetMapping(value = "/attendanceStats/event/{eventId}/users")
+    public List<UserAttendanceStatistics> getEventStatistics(
+            @ApiParam(value = "Required event ID", required = true) @PathVariable Long eventId,
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response) {
+        try {
+            return KeysetPagination.respond(attendanceStatisticsService.getEventStatistics(eventId, cursor, limit), response);
+        } catch (EventNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event not found!");
+        } catch (PermissionDeniedException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are not the administrator of this event!");
+        } catch (InvalidInputException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
+        }
+    }
+
+    @ApiOperation(value = "Returns the attendance rate of the attendance list", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "\"Attendance list not found!\" or \"You are not the administrator of this event!\""),
+            @ApiResponse(code = 500, message = "Server Error!")})
+    @GetMapping(value = "/attendanceStats/list/{attendanceListId}")
+    public ListAttendanceStatistics getListStatistics(@ApiParam(value = "Required attendance list ID", required = true)
+                                                      @PathVariable Long attendanceListId) {
+        try {
+            return attendanceStatisticsService.getListStatistics(attendanceListId);
+        } catch (AttendanceListNotFoundException | EventNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Attendance list not found!");
+        } catch (PermissionDeniedException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are not the administrator of this event!");
+        }
+    }
+
+    @ApiOperation(value = "Rebuilds the attendance statistics from the presences and reports the drifted rows", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 500, message = "Server Error!")})
+    @PostMapping(value = "/attendanceStats/reconcile")
+    public StatisticsReconciliation reconcile() {
+        return attendanceStatisticsService.reconcile();
+    }
+}
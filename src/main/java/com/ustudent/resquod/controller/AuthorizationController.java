@@ -1,11 +1,13 @@
 package com.ustudent.resquod.controller;
 
 import com.ustudent.resquod.exception.EmailExistException;
+import com.ustudent.resquod.exception.HashingOverloadedException;
 import com.ustudent.resquod.exception.InvalidInputException;
 import com.ustudent.resquod.exception.InvalidPasswordException;
 import com.ustudent.resquod.exception.PasswordMatchedException;
 import com.ustudent.resquod.model.dao.*;
 
+import com.ustudent.resquod.security.AccessEvaluator;
 import com.ustudent.resquod.service.JwtService;
 import com.ustudent.resquod.service.UserService;
 import io.swagger.annotations.*;
@@ -21,11 +23,13 @@ public class AuthorizationController {
 
     private final JwtService jwtService;
     private final UserService userService;
+    private final AccessEvaluator accessEvaluator;
 
     @Autowired
-    public AuthorizationController(JwtService jwtService, UserService userService) {
+    public AuthorizationController(JwtService jwtService, UserService userService, AccessEvaluator accessEvaluator) {
         this.jwtService = jwtService;
         this.userService = userService;
+        this.accessEvaluator = accessEvaluator;
     }
 
     @ApiOperation(value = "Create new user")
@@ -44,6 +48,8 @@ public class AuthorizationController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already taken!", ex);
         } catch (InvalidInputException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid input!", ex);
+        } catch (HashingOverloadedException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy, try again later!");
         } catch (RuntimeException ex) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "User cannot be registered!");
         }
@@ -56,6 +62,7 @@ public class AuthorizationController {
             "    \"token\": \"string\"\n" +
             "}"),
             @ApiResponse(code = 400, message = "\"Invalid input!\" or \"Email don't exist!\" or \"Invalid password!\""),
+            @ApiResponse(code = 503, message = "Server busy, try again later!"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @PostMapping("/login")
     public TokenTransfer login(
@@ -69,10 +76,20 @@ public class AuthorizationController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email don't exist!");
         } catch (InvalidPasswordException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid password!");
+        } catch (HashingOverloadedException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy, try again later!");
         }
 
     }
 
+    @ApiOperation(value = "Returns principal cache hit rate and permission check outcomes", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 403, message = "You Have no permission")})
+    @GetMapping("/accessStats")
+    public AccessStatistics getAccessStatistics() {
+        return accessEvaluator.getStatistics();
+    }
+
     @ApiOperation(value = "Get current user", authorizations = {@Authorization(value = "authkey")})
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad request"),
             @ApiResponse(code = 500, message = "Server Error!")})
@@ -100,6 +117,8 @@ public class AuthorizationController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid input!");
         } catch (InvalidPasswordException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid password!");
+        } catch (HashingOverloadedException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy, try again later!");
         }
         return new ResponseTransfer("Successfully updated!");
     }
@@ -120,6 +139,8 @@ public class AuthorizationController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password don't match!", ex);
         } catch (PasswordMatchedException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password Canno't be the same!", ex);
+        } catch (HashingOverloadedException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy, try again later!");
         } catch (RuntimeException ex) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Password Canno't be changed!", ex);
         }
@@ -6,15 +6,18 @@ import com.ustudent.resquod.exception.InvalidInputException;
 import com.ustudent.resquod.model.dao.CorpoData;
 import com.ustudent.resquod.model.dao.ResponseTransfer;
 import com.ustudent.resquod.service.CorporationService;
+import com.ustudent.resquod.service.KeysetPagination;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
@@ -54,10 +57,13 @@ public class CorporationController {
             @ApiResponse(code = 403, message = "You Have no permission"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/allCorpos")
-    public List<CorpoData> showAllCorpos() {
+    public List<CorpoData> showAllCorpos(
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response) {
         try {
-            return corporationService.showEveryCorpo();
-        } catch (EmailExistException ex) {
+            return KeysetPagination.respond(corporationService.showEveryCorpo(cursor, limit), response);
+        } catch (EmailExistException | InvalidInputException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
         }
     }
@@ -4,12 +4,17 @@ package com.ustudent.resquod.controller;
 import com.ustudent.resquod.exception.*;
 import com.ustudent.resquod.model.dao.*;
 import com.ustudent.resquod.service.EventService;
+import com.ustudent.resquod.service.KeysetPagination;
+import com.ustudent.resquod.service.VersionRegistry;
+import com.ustudent.resquod.security.AuthenticatedUser;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 import java.util.Set;
 
@@ -19,11 +24,13 @@ import java.util.Set;
 public class EventController {
 
     private final EventService eventService;
+    private final VersionRegistry versionRegistry;
 
 
     @Autowired
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, VersionRegistry versionRegistry) {
         this.eventService = eventService;
+        this.versionRegistry = versionRegistry;
     }
 
     @ApiOperation(value = "Returns Admin events List", authorizations = {@Authorization(value = "authkey")})
@@ -42,7 +49,9 @@ public class EventController {
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad request"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/userEvents")
-    public Set<EventDTO> getUserEvents() {
+    public Set<EventDTO> getUserEvents(WebRequest request) {
+        if (VersionRegistry.notModified(request, versionRegistry.etag(VersionRegistry.USER, AuthenticatedUser.current().getId())))
+            return null;
         try {
             return eventService.findUserEvents();
         } catch (EmailExistException ex) {
@@ -102,10 +111,13 @@ public class EventController {
             @ApiResponse(code = 403, message = "You Have no permission"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/allEvents")
-    public List<EventDTO> showAllEvents() {
+    public List<EventDTO> showAllEvents(
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response) {
         try {
-            return eventService.showEveryEvent();
-        } catch (EmailExistException ex) {
+            return KeysetPagination.respond(eventService.showEveryEvent(cursor, limit), response);
+        } catch (EmailExistException | InvalidInputException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
         }
     }
@@ -148,9 +160,14 @@ public class EventController {
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/getEventUsers/{eventId}")
     public List<UserData> showAllEvents(@ApiParam(value = "Required event ID", required = true)
-                                        @PathVariable Long eventId) {
+                                        @PathVariable Long eventId,
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response) {
         try {
-            return eventService.getEventUsers(eventId);
+            return KeysetPagination.respond(eventService.getEventUsers(eventId, cursor, limit), response);
+        } catch (InvalidInputException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
         } catch (EventNotFoundException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event not found!");
         } catch (ObjectNotFoundException ex) {
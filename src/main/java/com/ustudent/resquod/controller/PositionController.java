@@ -6,12 +6,15 @@ import com.ustudent.resquod.model.dao.EventAndAttendanceListData;
 import com.ustudent.resquod.model.dao.NewPositionData;
 import com.ustudent.resquod.model.dao.PositionData;
 import com.ustudent.resquod.model.dao.ResponseTransfer;
+import com.ustudent.resquod.model.dao.TagCacheStatistics;
 import com.ustudent.resquod.service.PositionService;
+import com.ustudent.resquod.service.VersionRegistry;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -21,10 +24,12 @@ import java.util.List;
 public class PositionController {
 
     private final PositionService positionService;
+    private final VersionRegistry versionRegistry;
 
     @Autowired
-    public PositionController(PositionService positionService) {
+    public PositionController(PositionService positionService, VersionRegistry versionRegistry) {
         this.positionService = positionService;
+        this.versionRegistry = versionRegistry;
     }
 
     @ApiOperation(value = "Returns positions with null tag id", authorizations = {@Authorization(value = "authkey")})
@@ -32,7 +37,10 @@ public class PositionController {
             @ApiResponse(code = 401, message = "Permission Denied")})
     @GetMapping("/nullTagsGetter")
     public List<PositionData> getNullTags(@ApiParam(value = "Required corporation id", required = true)
-                                          @RequestParam Long id) {
+                                          @RequestParam Long id, WebRequest request) {
+        positionService.checkNullTagsAccess(id);
+        if (VersionRegistry.notModified(request, versionRegistry.etag(VersionRegistry.CORPORATION, id)))
+            return null;
         return positionService.getNullTags(id);
     }
 
@@ -104,9 +112,18 @@ public class PositionController {
         return new ResponseTransfer("Successfully updated!");
     }
 
+    @ApiOperation(value = "Returns NFC tag cache hit rate and check-in latency", authorizations = {@Authorization(value = "authkey")})
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 403, message = "You Have no permission")})
+    @GetMapping("/tagCacheStats")
+    public TagCacheStatistics getTagCacheStatistics() {
+        return positionService.getTagCacheStatistics();
+    }
+
     @ApiOperation(value = "Read NFC tag and get presence!", authorizations = {@Authorization(value = "authkey")})
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid input! or There is no event to get Presence!"),
-            @ApiResponse(code = 500, message = "Server Error!")})
+            @ApiResponse(code = 500, message = "Server Error!"),
+            @ApiResponse(code = 503, message = "Too many check-ins, try again!")})
     @PostMapping("/presenceAtPosition")
     public EventAndAttendanceListData getPresenceAtPosition(
             @ApiParam(value = "Required tagId", required = true)
@@ -117,6 +134,8 @@ public class PositionController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid input!");
         } catch (ObjectNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "There is no event to get Presence! or Bad TagId");
+        } catch (CheckInQueueFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many check-ins, try again!");
         }
     }
 }
\ No newline at end of file
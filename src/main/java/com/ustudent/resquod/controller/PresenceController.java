@@ -1,21 +1,24 @@
 package com.ustudent.resquod.controller;
 
-import com.ustudent.resquod.exception.EmailExistException;
+import com.ustudent.resquod.exception.InvalidInputException;
 import com.ustudent.resquod.model.dao.PresenceData;
-import com.ustudent.resquod.model.dao.UserData;
+import com.ustudent.resquod.security.AuthenticatedUser;
+import com.ustudent.resquod.service.KeysetPagination;
 import com.ustudent.resquod.service.PresenceService;
 import com.ustudent.resquod.service.UserService;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import io.swagger.annotations.Authorization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
@@ -34,12 +37,14 @@ public class PresenceController {
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad request"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/userPresences")
-    public List<PresenceData> getUserPresences() {
+    public List<PresenceData> getUserPresences(
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response) {
         try {
-            String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-            UserData userData = userService.getUser(email);
-            return presenceService.findUserPresences(userData.getEmail());
-        } catch (EmailExistException ex) {
+            return KeysetPagination.respond(
+                    presenceService.findUserPresences(AuthenticatedUser.current().getEmail(), cursor, limit), response);
+        } catch (InvalidInputException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
         }
     }
@@ -2,15 +2,21 @@ package com.ustudent.resquod.controller;
 
 import com.ustudent.resquod.model.dao.NewRoomData;
 import com.ustudent.resquod.exception.*;
+import com.ustudent.resquod.model.dao.CursorPage;
 import com.ustudent.resquod.model.dao.ResponseTransfer;
 import com.ustudent.resquod.model.dao.RoomDTO;
+import com.ustudent.resquod.service.KeysetPagination;
 import com.ustudent.resquod.service.RoomService;
+import com.ustudent.resquod.service.VersionRegistry;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
-import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 
 
 @RestController
@@ -18,10 +24,12 @@ import java.util.Set;
 public class RoomController {
 
     private final RoomService roomService;
+    private final VersionRegistry versionRegistry;
 
     @Autowired
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, VersionRegistry versionRegistry) {
         this.roomService=roomService;
+        this.versionRegistry = versionRegistry;
     }
 
     @ApiOperation(value = "Add New Room", authorizations = {@Authorization(value = "authkey")})
@@ -46,14 +54,23 @@ public class RoomController {
 
     @ApiOperation(value = "Returns corporation rooms list", authorizations = {@Authorization(value = "authkey")})
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Bad request"),
+            @ApiResponse(code = 401, message = "Permission Denied"),
             @ApiResponse(code = 500, message = "Server Error!")})
     @GetMapping(value = "/corpoRooms")
-    public @ResponseBody Set<RoomDTO> getCorpoRooms(@RequestParam Long id)
+    public @ResponseBody List<RoomDTO> getCorpoRooms(@RequestParam Long id,
+            @ApiParam(value = "Cursor from the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size") @RequestParam(required = false) Integer limit,
+            HttpServletResponse response, WebRequest request)
     {
         try {
-            return roomService.findCorpoRooms(id);
-        } catch (EmailExistException ex) {
+            roomService.checkCorpoRoomsAccess(id);
+            CursorPage<RoomDTO> rooms = versionRegistry.readIfModified(request, VersionRegistry.CORPORATION, id,
+                    () -> roomService.findCorpoRooms(id, cursor, limit));
+            return rooms == null ? null : KeysetPagination.respond(rooms, response);
+        } catch (EmailExistException | InvalidInputException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad request");
+        } catch (PermissionDeniedException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Permission Denied");
         }
     }
 
@@ -0,0 +1,6 @@
+package com.ustudent.resquod.exception;
+
+public class CheckInQueueFullException extends RuntimeException {
+    public CheckInQueueFullException() {
+    }
+}
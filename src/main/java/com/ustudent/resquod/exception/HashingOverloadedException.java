@@ -0,0 +1,6 @@
+package com.ustudent.resquod.exception;
+
+public class HashingOverloadedException extends RuntimeException {
+    public HashingOverloadedException() {
+    }
+}
@@ -0,0 +1,10 @@
+package com.ustudent.resquod.exception;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException() {
+    }
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
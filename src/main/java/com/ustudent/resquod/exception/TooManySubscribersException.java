@@ -0,0 +1,6 @@
+package com.ustudent.resquod.exception;
+
+public class TooManySubscribersException extends RuntimeException {
+    public TooManySubscribersException() {
+    }
+}
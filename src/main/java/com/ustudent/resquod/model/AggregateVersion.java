@@ -0,0 +1,31 @@
+package com.ustudent.resquod.model;
+
+import javax.persistence.*;
+
+/**
+ * Version counter of one user, event or corporation, the source of the read endpoints' ETags.
+ */
+@Entity
+@Table(name = "aggregate_versions")
+public class AggregateVersion {
+    @Id
+    @Column(name = "aggregate_key", length = 64)
+    private String aggregateKey;
+    private Long version;
+
+    public String getAggregateKey() {
+        return aggregateKey;
+    }
+
+    public void setAggregateKey(String aggregateKey) {
+        this.aggregateKey = aggregateKey;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ustudent.resquod.model;
+
+import javax.persistence.*;
+
+/**
+ * Present and total member counters of one attendance list.
+ */
+@Entity
+@Table(name = "attendance_list_statistics", indexes = @Index(columnList = "event_id"))
+public class AttendanceListStatistics {
+    @Id
+    @Column(name = "attendance_list_id")
+    private Long attendanceListId;
+    @Column(name = "event_id")
+    private Long eventId;
+    private Integer presentCount;
+    private Integer totalCount;
+
+    public Long getAttendanceListId() {
+        return attendanceListId;
+    }
+
+    public void setAttendanceListId(Long attendanceListId) {
+        this.attendanceListId = attendanceListId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Integer getPresentCount() {
+        return presentCount;
+    }
+
+    public void setPresentCount(Integer presentCount) {
+        this.presentCount = presentCount;
+    }
+
+    public Integer getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Integer totalCount) {
+        this.totalCount = totalCount;
+    }
+}
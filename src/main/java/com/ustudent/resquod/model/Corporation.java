@@ -11,10 +11,11 @@ public class Corporation {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String name;
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.ALL})
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.ALL})
     @JoinTable(name = "Corporations_Users",
             joinColumns = @JoinColumn(name = "corporations_id"),
-            inverseJoinColumns = @JoinColumn(name = "user_id"))
+            inverseJoinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(columnList = "user_id"))
     private final Set<User> users = new HashSet<>();
 
     public Corporation() {
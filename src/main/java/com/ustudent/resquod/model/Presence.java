@@ -2,10 +2,9 @@ package com.ustudent.resquod.model;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
-import java.util.Date;
 
 @Entity
-@Table(name = "presences")
+@Table(name = "presences", uniqueConstraints = {@UniqueConstraint(columnNames = {"user_id", "attendance_list_id"})})
 public class Presence {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,10 +12,12 @@ public class Presence {
     private Boolean presence;
     private LocalDateTime date;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "attendance_list_id")
     private AttendanceList attendanceList;
 
     public Long getId() {
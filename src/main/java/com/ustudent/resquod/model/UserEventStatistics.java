@@ -0,0 +1,61 @@
+package com.ustudent.resquod.model;
+
+import javax.persistence.*;
+
+/**
+ * Present and total attendance list counters of one event member, kept up to date on
+ * check-in, list creation and event join so the attendance rate is read from a single row.
+ */
+@Entity
+@Table(name = "user_event_statistics", uniqueConstraints = {@UniqueConstraint(columnNames = {"event_id", "user_id"})})
+public class UserEventStatistics {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(name = "event_id")
+    private Long eventId;
+    private Integer presentCount;
+    private Integer totalCount;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Integer getPresentCount() {
+        return presentCount;
+    }
+
+    public void setPresentCount(Integer presentCount) {
+        this.presentCount = presentCount;
+    }
+
+    public Integer getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Integer totalCount) {
+        this.totalCount = totalCount;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ustudent.resquod.model.dao;
+
+public class AccessStatistics {
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    private Long granted;
+    private Long denied;
+
+    public AccessStatistics(Long hits, Long misses, Long granted, Long denied) {
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        this.granted = granted;
+        this.denied = denied;
+    }
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public Long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    public Double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(Double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public Long getGranted() {
+        return granted;
+    }
+
+    public void setGranted(Long granted) {
+        this.granted = granted;
+    }
+
+    public Long getDenied() {
+        return denied;
+    }
+
+    public void setDenied(Long denied) {
+        this.denied = denied;
+    }
+}
@@ -0,0 +1,131 @@
+package com.ustudent.resquod.model.dao;
+
+import java.time.LocalDateTime;
+
+public class AttendanceExportRow {
+    private Long eventId;
+    private String eventName;
+    private Long attendanceListId;
+    private String attendanceListName;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long userId;
+    private String email;
+    private String name;
+    private String surname;
+    private Boolean present;
+    private LocalDateTime date;
+
+    public AttendanceExportRow(Long eventId, String eventName, Long attendanceListId, String attendanceListName,
+                               LocalDateTime startTime, LocalDateTime endTime, Long userId, String email,
+                               String name, String surname, Boolean present, LocalDateTime date) {
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.attendanceListId = attendanceListId;
+        this.attendanceListName = attendanceListName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.userId = userId;
+        this.email = email;
+        this.name = name;
+        this.surname = surname;
+        this.present = present;
+        this.date = date;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public void setEventName(String eventName) {
+        this.eventName = eventName;
+    }
+
+    public Long getAttendanceListId() {
+        return attendanceListId;
+    }
+
+    public void setAttendanceListId(Long attendanceListId) {
+        this.attendanceListId = attendanceListId;
+    }
+
+    public String getAttendanceListName() {
+        return attendanceListName;
+    }
+
+    public void setAttendanceListName(String attendanceListName) {
+        this.attendanceListName = attendanceListName;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public Boolean getPresent() {
+        return present;
+    }
+
+    public void setPresent(Boolean present) {
+        this.present = present;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,47 @@
+package com.ustudent.resquod.model.dao;
+
+public class AttendanceListCreationResult {
+    private Long id;
+    private String name;
+    private Long eventId;
+    private Integer presencesCreated;
+
+    public AttendanceListCreationResult(Long id, String name, Long eventId, Integer presencesCreated) {
+        this.id = id;
+        this.name = name;
+        this.eventId = eventId;
+        this.presencesCreated = presencesCreated;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Integer getPresencesCreated() {
+        return presencesCreated;
+    }
+
+    public void setPresencesCreated(Integer presencesCreated) {
+        this.presencesCreated = presencesCreated;
+    }
+}
@@ -14,6 +14,20 @@ public class EventAndAttendanceListData {
     public EventAndAttendanceListData() {
     }
 
+    public EventAndAttendanceListData(Long eventId,
+                                      String eventName,
+                                      Long attendanceListId,
+                                      String attendanceListName,
+                                      LocalDateTime startTime,
+                                      LocalDateTime endTime) {
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.attendanceListId = attendanceListId;
+        this.attendanceListName = attendanceListName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
     public String getEventName() {
         return eventName;
     }
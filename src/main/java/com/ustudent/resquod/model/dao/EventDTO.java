@@ -19,6 +19,12 @@ public class EventDTO {
         this.room=room;
     }
 
+    public EventDTO(Long id, String name, Long administratorId, String password,
+                    Long roomId, String roomName, Long corporationId, String corporationName) {
+        this(id, name, administratorId, password,
+                roomId == null ? null : new RoomDTO(roomId, roomName, new CorporationDTO(corporationId, corporationName)));
+    }
+
     public RoomDTO getRoom() {
         return room;
     }
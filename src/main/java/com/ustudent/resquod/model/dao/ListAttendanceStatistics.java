@@ -0,0 +1,57 @@
+package com.ustudent.resquod.model.dao;
+
+public class ListAttendanceStatistics {
+    private Long attendanceListId;
+    private Long eventId;
+    private Integer present;
+    private Integer total;
+    private Double rate;
+
+    public ListAttendanceStatistics(Long attendanceListId, Long eventId, Integer present, Integer total) {
+        this.attendanceListId = attendanceListId;
+        this.eventId = eventId;
+        this.present = present;
+        this.total = total;
+        this.rate = total == 0 ? 0.0 : (double) present / total;
+    }
+
+    public Long getAttendanceListId() {
+        return attendanceListId;
+    }
+
+    public void setAttendanceListId(Long attendanceListId) {
+        this.attendanceListId = attendanceListId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Integer getPresent() {
+        return present;
+    }
+
+    public void setPresent(Integer present) {
+        this.present = present;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    public Double getRate() {
+        return rate;
+    }
+
+    public void setRate(Double rate) {
+        this.rate = rate;
+    }
+}
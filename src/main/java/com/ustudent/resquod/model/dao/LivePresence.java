@@ -0,0 +1,69 @@
+package com.ustudent.resquod.model.dao;
+
+import java.time.LocalDateTime;
+
+public class LivePresence {
+    private Long attendanceListId;
+    private Long userId;
+    private String email;
+    private String name;
+    private String surname;
+    private LocalDateTime date;
+
+    public LivePresence(Long attendanceListId, Long userId, String email, String name, String surname, LocalDateTime date) {
+        this.attendanceListId = attendanceListId;
+        this.userId = userId;
+        this.email = email;
+        this.name = name;
+        this.surname = surname;
+        this.date = date;
+    }
+
+    public Long getAttendanceListId() {
+        return attendanceListId;
+    }
+
+    public void setAttendanceListId(Long attendanceListId) {
+        this.attendanceListId = attendanceListId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ustudent.resquod.model.dao;
+
+import java.time.LocalDateTime;
+
+public class PendingCheckIn {
+    private final Long presenceId;
+    private final Long userId;
+    private final Long eventId;
+    private final Long attendanceListId;
+    private final LocalDateTime date;
+
+    public PendingCheckIn(Long presenceId, Long userId, Long eventId, Long attendanceListId, LocalDateTime date) {
+        this.presenceId = presenceId;
+        this.userId = userId;
+        this.eventId = eventId;
+        this.attendanceListId = attendanceListId;
+        this.date = date;
+    }
+
+    public Long getPresenceId() {
+        return presenceId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public Long getAttendanceListId() {
+        return attendanceListId;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+}
@@ -15,6 +15,10 @@ public class RoomDTO {
         this.corporation = corporation;
     }
 
+    public RoomDTO(Long id, String name, Long corporationId, String corporationName) {
+        this(id, name, new CorporationDTO(corporationId, corporationName));
+    }
+
     public CorporationDTO getCorporation() {
         return corporation;
     }
@@ -0,0 +1,37 @@
+package com.ustudent.resquod.model.dao;
+
+public class StatisticsReconciliation {
+    private Integer events;
+    private Integer driftedRows;
+    private Long durationMillis;
+
+    public StatisticsReconciliation(Integer events, Integer driftedRows, Long durationMillis) {
+        this.events = events;
+        this.driftedRows = driftedRows;
+        this.durationMillis = durationMillis;
+    }
+
+    public Integer getEvents() {
+        return events;
+    }
+
+    public void setEvents(Integer events) {
+        this.events = events;
+    }
+
+    public Integer getDriftedRows() {
+        return driftedRows;
+    }
+
+    public void setDriftedRows(Integer driftedRows) {
+        this.driftedRows = driftedRows;
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(Long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ustudent.resquod.model.dao;
+
+public class TagCacheStatistics {
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    private Long taps;
+    private Long averageTapMicros;
+    private Long maxTapMicros;
+
+    public TagCacheStatistics(Long hits, Long misses, Long taps, Long averageTapMicros, Long maxTapMicros) {
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        this.taps = taps;
+        this.averageTapMicros = averageTapMicros;
+        this.maxTapMicros = maxTapMicros;
+    }
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public Long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    public Double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(Double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public Long getTaps() {
+        return taps;
+    }
+
+    public void setTaps(Long taps) {
+        this.taps = taps;
+    }
+
+    public Long getAverageTapMicros() {
+        return averageTapMicros;
+    }
+
+    public void setAverageTapMicros(Long averageTapMicros) {
+        this.averageTapMicros = averageTapMicros;
+    }
+
+    public Long getMaxTapMicros() {
+        return maxTapMicros;
+    }
+
+    public void setMaxTapMicros(Long maxTapMicros) {
+        this.maxTapMicros = maxTapMicros;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ustudent.resquod.model.dao;
+
+public class UserAttendanceStatistics {
+    private Long userId;
+    private String email;
+    private String name;
+    private String surname;
+    private Long eventId;
+    private Integer present;
+    private Integer total;
+    private Double rate;
+
+    public UserAttendanceStatistics(Long userId, String email, String name, String surname, Long eventId,
+                                    Integer present, Integer total) {
+        this.userId = userId;
+        this.email = email;
+        this.name = name;
+        this.surname = surname;
+        this.eventId = eventId;
+        this.present = present;
+        this.total = total;
+        this.rate = total == 0 ? 0.0 : (double) present / total;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Integer getPresent() {
+        return present;
+    }
+
+    public void setPresent(Integer present) {
+        this.present = present;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    public Double getRate() {
+        return rate;
+    }
+
+    public void setRate(Double rate) {
+        this.rate = rate;
+    }
+}
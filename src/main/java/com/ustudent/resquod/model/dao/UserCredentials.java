@@ -0,0 +1,47 @@
+package com.ustudent.resquod.model.dao;
+
+public class UserCredentials {
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final String role;
+    private final String name;
+    private final String surname;
+
+    public UserCredentials(Long id, String email, String password, String role, String name, String surname) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.name = name;
+        this.surname = surname;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public UserData toUserData() {
+        return new UserData(email, role, name, surname);
+    }
+}
@@ -1,6 +1,10 @@
 package com.ustudent.resquod.model.dao;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class UserData {
+    @JsonIgnore
+    private Long id;
     private String email;
     private String role;
     private String name;
@@ -13,9 +17,18 @@ public class UserData {
         this.surname = surname;
     }
 
+    public UserData(Long id, String email, String role, String name, String surname) {
+        this(email, role, name, surname);
+        this.id = id;
+    }
+
     public UserData() {
     }
 
+    public Long getId() {
+        return id;
+    }
+
     public String getEmail() {
         return email;
     }
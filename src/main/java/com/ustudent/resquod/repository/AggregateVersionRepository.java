@@ -0,0 +1,72 @@
+package com.ustudent.resquod.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the aggregate_versions counters in the database, so every instance tags its responses with the same versions.
+ */
+@Repository
+public class AggregateVersionRepository {
+
+    private static final String INCREMENT_VERSION =
+            "UPDATE aggregate_versions SET version = version + 1 WHERE aggregate_key = ?";
+
+    private static final String INSERT_VERSION =
+            "INSERT INTO aggregate_versions (aggregate_key, version) VALUES (?, 1)";
+
+    private static final String SELECT_VERSION =
+            "SELECT version FROM aggregate_versions WHERE aggregate_key = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AggregateVersionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Increments the counters in one batch and creates the ones that do not exist yet in a second one.
+     * When another writer created one of them concurrently, the missing counters are created one by one
+     * and that one is incremented instead.
+     */
+    public void increment(List<String> keys) {
+        int[][] counts = jdbcTemplate.batchUpdate(INCREMENT_VERSION, keys, keys.size(), (ps, key) -> ps.setString(1, key));
+        List<String> missing = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0)
+                    missing.add(keys.get(i));
+                i++;
+            }
+        }
+        if (missing.isEmpty())
+            return;
+        try {
+            jdbcTemplate.batchUpdate(INSERT_VERSION, missing, missing.size(), (ps, key) -> ps.setString(1, key));
+        } catch (DataIntegrityViolationException e) {
+            for (String key : missing)
+                insert(key);
+        }
+    }
+
+    public long find(String key) {
+        List<Long> versions = jdbcTemplate.queryForList(SELECT_VERSION, Long.class, key);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    private void insert(String key) {
+        try {
+            jdbcTemplate.update(INSERT_VERSION, key);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(INCREMENT_VERSION, key);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.dao.AttendanceExportRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Reads attendance exports through a forward-only cursor. With a positive fetch size the MariaDB driver
+ * streams the result set in chunks of that many rows, so an export never holds more than one chunk in memory.
+ * One row per (attendance list, event member), absences without a presence row are exported as absent.
+ */
+@Repository
+public class AttendanceExportRepository {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT e.id, e.name, a.id, a.name, a.start_time, a.end_time, u.id, u.email, u.name, u.surname, p.presence, p.date " +
+            "FROM attendance_lists a " +
+            "JOIN events e ON e.id = a.event_id " +
+            "JOIN events_users eu ON eu.events_id = e.id " +
+            "JOIN users u ON u.id = eu.user_id " +
+            "LEFT JOIN presences p ON p.attendance_list_id = a.id AND p.user_id = u.id ";
+
+    private static final String EXPORT_EVENT = SELECT_COLUMNS +
+            "WHERE e.id = ? " +
+            "ORDER BY a.id, u.id";
+
+    private static final String EXPORT_CORPORATION = SELECT_COLUMNS +
+            "JOIN rooms r ON r.id = e.room_id " +
+            "WHERE r.corporation_id = ? " +
+            "ORDER BY e.id, a.id, u.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    @Autowired
+    public AttendanceExportRepository(JdbcTemplate jdbcTemplate,
+                                      @Value("${resquod.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    public void exportEvent(Long eventId, Consumer<AttendanceExportRow> consumer) {
+        export(EXPORT_EVENT, eventId, consumer);
+    }
+
+    public void exportCorporation(Long corporationId, Consumer<AttendanceExportRow> consumer) {
+        export(EXPORT_CORPORATION, corporationId, consumer);
+    }
+
+    private void export(String sql, Long id, Consumer<AttendanceExportRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, id);
+            return statement;
+        }, rs -> {
+            consumer.accept(new AttendanceExportRow(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4),
+                    toLocalDateTime(rs.getTimestamp(5)), toLocalDateTime(rs.getTimestamp(6)),
+                    rs.getLong(7), rs.getString(8), rs.getString(9), rs.getString(10),
+                    rs.getBoolean(11), toLocalDateTime(rs.getTimestamp(12))));
+        });
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
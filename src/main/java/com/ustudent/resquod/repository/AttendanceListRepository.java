@@ -2,11 +2,16 @@ package com.ustudent.resquod.repository;
 
 import com.ustudent.resquod.model.AttendanceList;
 import com.ustudent.resquod.model.dao.AttendanceListData;
+import com.ustudent.resquod.model.dao.EventAndAttendanceListData;
+import com.ustudent.resquod.model.dao.LivePresence;
 import com.ustudent.resquod.model.dao.UserData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,8 +20,9 @@ public interface AttendanceListRepository extends JpaRepository<AttendanceList,I
             "FROM AttendanceList a " +
             "INNER JOIN Presence p ON a.id = p.attendanceList.id " +
             "INNER JOIN User u ON u.id = p.user.id " +
-            "WHERE u.email = ?1")
-    List<AttendanceListData> findListsByUserEmail(String email);
+            "WHERE u.email = ?1 AND a.id > ?2 " +
+            "ORDER BY a.id")
+    List<AttendanceListData> findListsByUserEmail(String email, Long afterId, Pageable pageable);
 
 
     AttendanceList findById(Long Id);
@@ -33,6 +39,21 @@ public interface AttendanceListRepository extends JpaRepository<AttendanceList,I
             " AND p.presence='1'")
     List<UserData> findPresentUsers(Long attendanceListId);
 
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.LivePresence(p.attendanceList.id, u.id, u.email, u.name, u.surname, p.date) " +
+            " FROM Presence p " +
+            " JOIN p.user u " +
+            " WHERE p.attendanceList.id = ?1 " +
+            " AND p.presence = true")
+    List<LivePresence> findLivePresences(Long attendanceListId);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.LivePresence(p.attendanceList.id, u.id, u.email, u.name, u.surname, p.date) " +
+            " FROM Presence p " +
+            " JOIN p.user u " +
+            " WHERE p.attendanceList.id IN ?1 " +
+            " AND p.presence = true " +
+            " AND p.date >= ?2")
+    List<LivePresence> findLivePresencesSince(Collection<Long> attendanceListIds, LocalDateTime since);
+
     @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserData(u.email, u.role, u.name, u.surname) " +
             " FROM User u " +
             " INNER JOIN Presence p ON u.id = p.user.id " +
@@ -40,6 +61,27 @@ public interface AttendanceListRepository extends JpaRepository<AttendanceList,I
             " AND p.presence='0'")
     List<UserData> findAbsentUsers(Long attendanceListId);
 
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.AttendanceListData(a.id, a.name, a.startTime, a.endTime, e.id) " +
+            "FROM AttendanceList a " +
+            "JOIN a.event e " +
+            "JOIN e.users u " +
+            "WHERE u.email = ?1 AND a.id > ?2 " +
+            "ORDER BY a.id")
+    List<AttendanceListData> findListsByMemberEmail(String email, Long afterId, Pageable pageable);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserData(u.email, u.role, u.name, u.surname) " +
+            " FROM AttendanceList a " +
+            " JOIN a.event e " +
+            " JOIN e.users u " +
+            " WHERE a.id=?1 " +
+            " AND NOT EXISTS (SELECT p FROM Presence p WHERE p.attendanceList.id = a.id AND p.user.id = u.id AND p.presence = true)")
+    List<UserData> findAbsentMembers(Long attendanceListId);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.EventAndAttendanceListData(e.id, e.name, a.id, a.name, a.startTime, a.endTime) " +
+            "FROM AttendanceList a " +
+            "JOIN a.event e " +
+            "WHERE e.room.id = ?1 AND a.endTime >= ?2 order by a.startTime desc")
+    List<EventAndAttendanceListData> findNotEndedByRoomId(Long roomId, LocalDateTime date);
 
 
 
@@ -0,0 +1,19 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.AttendanceListStatistics;
+import com.ustudent.resquod.model.dao.ListAttendanceStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AttendanceListStatisticsRepository extends JpaRepository<AttendanceListStatistics, Long> {
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.ListAttendanceStatistics(s.attendanceListId, s.eventId, " +
+            "s.presentCount, s.totalCount) " +
+            "FROM AttendanceListStatistics s " +
+            "WHERE s.attendanceListId = ?1")
+    Optional<ListAttendanceStatistics> findStatistics(Long attendanceListId);
+}
@@ -0,0 +1,181 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.dao.PendingCheckIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the user_event_statistics and attendance_list_statistics counters.
+ * A member's total is the number of lists of the event, a list's total is the number of event members.
+ */
+@Repository
+public class AttendanceStatisticsBatchRepository {
+
+    private static final String INSERT_MEMBER_COUNTERS =
+            "INSERT INTO user_event_statistics (present_count, total_count, user_id, event_id) " +
+            "SELECT 0, COUNT(*), ?, ? FROM attendance_lists a WHERE a.event_id = ?";
+
+    private static final String INCREMENT_LIST_TOTALS =
+            "UPDATE attendance_list_statistics SET total_count = total_count + 1 WHERE event_id = ?";
+
+    private static final String INSERT_LIST_COUNTERS =
+            "INSERT INTO attendance_list_statistics (present_count, total_count, attendance_list_id, event_id) " +
+            "SELECT 0, COUNT(*), ?, ? FROM events_users eu WHERE eu.events_id = ?";
+
+    private static final String INCREMENT_MEMBER_TOTALS =
+            "UPDATE user_event_statistics SET total_count = total_count + 1 WHERE event_id = ?";
+
+    private static final String INCREMENT_MEMBER_PRESENT =
+            "UPDATE user_event_statistics SET present_count = present_count + 1 WHERE user_id = ? AND event_id = ?";
+
+    private static final String INCREMENT_LIST_PRESENT =
+            "UPDATE attendance_list_statistics SET present_count = present_count + 1 WHERE attendance_list_id = ?";
+
+    private static final String SELECT_EVENT_IDS = "SELECT id FROM events ORDER BY id";
+    private static final String SELECT_MEMBERS = "SELECT user_id FROM events_users WHERE events_id = ?";
+    private static final String SELECT_LISTS = "SELECT id FROM attendance_lists WHERE event_id = ?";
+
+    private static final String COUNT_PRESENT_BY_MEMBER =
+            "SELECT p.user_id, COUNT(*) FROM presences p " +
+            "JOIN attendance_lists a ON a.id = p.attendance_list_id " +
+            "WHERE a.event_id = ? AND p.presence = true GROUP BY p.user_id";
+
+    private static final String COUNT_PRESENT_BY_LIST =
+            "SELECT p.attendance_list_id, COUNT(*) FROM presences p " +
+            "JOIN attendance_lists a ON a.id = p.attendance_list_id " +
+            "WHERE a.event_id = ? AND p.presence = true GROUP BY p.attendance_list_id";
+
+    private static final String SELECT_MEMBER_COUNTERS =
+            "SELECT user_id, present_count, total_count FROM user_event_statistics WHERE event_id = ?";
+    private static final String UPDATE_MEMBER_COUNTERS =
+            "UPDATE user_event_statistics SET present_count = ?, total_count = ? WHERE user_id = ? AND event_id = ?";
+    private static final String INSERT_MEMBER_COUNTERS_VALUES =
+            "INSERT INTO user_event_statistics (present_count, total_count, user_id, event_id) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_MEMBER_COUNTERS =
+            "DELETE FROM user_event_statistics WHERE user_id = ? AND event_id = ?";
+
+    private static final String SELECT_LIST_COUNTERS =
+            "SELECT attendance_list_id, present_count, total_count FROM attendance_list_statistics WHERE event_id = ?";
+    private static final String UPDATE_LIST_COUNTERS =
+            "UPDATE attendance_list_statistics SET present_count = ?, total_count = ? WHERE attendance_list_id = ? AND event_id = ?";
+    private static final String INSERT_LIST_COUNTERS_VALUES =
+            "INSERT INTO attendance_list_statistics (present_count, total_count, attendance_list_id, event_id) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_LIST_COUNTERS =
+            "DELETE FROM attendance_list_statistics WHERE attendance_list_id = ? AND event_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AttendanceStatisticsBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the member's counters with the event's current list count.
+     */
+    public void insertMemberCounters(Long eventId, Long userId) {
+        jdbcTemplate.update(INSERT_MEMBER_COUNTERS, userId, eventId, eventId);
+    }
+
+    /**
+     * Adds one member to the total of every list of the event, this locks all of the event's list rows.
+     */
+    public void incrementListTotals(Long eventId) {
+        jdbcTemplate.update(INCREMENT_LIST_TOTALS, eventId);
+    }
+
+    /**
+     * Creates the list's counters with the event's current member count and adds the list to every member's total.
+     */
+    public void listCreated(Long attendanceListId, Long eventId) {
+        jdbcTemplate.update(INSERT_LIST_COUNTERS, attendanceListId, eventId, eventId);
+        jdbcTemplate.update(INCREMENT_MEMBER_TOTALS, eventId);
+    }
+
+    public void checkedIn(List<PendingCheckIn> checkIns) {
+        if (checkIns.isEmpty())
+            return;
+        List<Object[]> members = new ArrayList<>(checkIns.size());
+        List<Object[]> lists = new ArrayList<>(checkIns.size());
+        for (PendingCheckIn checkIn : checkIns) {
+            members.add(new Object[]{checkIn.getUserId(), checkIn.getEventId()});
+            lists.add(new Object[]{checkIn.getAttendanceListId()});
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_MEMBER_PRESENT, members);
+        jdbcTemplate.batchUpdate(INCREMENT_LIST_PRESENT, lists);
+    }
+
+    public List<Long> findEventIds() {
+        return jdbcTemplate.queryForList(SELECT_EVENT_IDS, Long.class);
+    }
+
+    /**
+     * Recounts the event's counters from the membership, attendance list and presence tables
+     * and rewrites the rows that drifted. Returns the number of rows inserted, updated or deleted.
+     */
+    public int reconcileEvent(Long eventId) {
+        List<Long> members = jdbcTemplate.queryForList(SELECT_MEMBERS, Long.class, eventId);
+        List<Long> lists = jdbcTemplate.queryForList(SELECT_LISTS, Long.class, eventId);
+        Map<Long, Integer> presentByMember = countByKey(COUNT_PRESENT_BY_MEMBER, eventId);
+        Map<Long, Integer> presentByList = countByKey(COUNT_PRESENT_BY_LIST, eventId);
+
+        Map<Long, int[]> expectedMembers = new HashMap<>();
+        for (Long userId : members)
+            expectedMembers.put(userId, new int[]{presentByMember.getOrDefault(userId, 0), lists.size()});
+        Map<Long, int[]> expectedLists = new HashMap<>();
+        for (Long attendanceListId : lists)
+            expectedLists.put(attendanceListId, new int[]{presentByList.getOrDefault(attendanceListId, 0), members.size()});
+
+        return rewriteDrifted(eventId, expectedMembers, countersByKey(SELECT_MEMBER_COUNTERS, eventId),
+                INSERT_MEMBER_COUNTERS_VALUES, UPDATE_MEMBER_COUNTERS, DELETE_MEMBER_COUNTERS)
+                + rewriteDrifted(eventId, expectedLists, countersByKey(SELECT_LIST_COUNTERS, eventId),
+                INSERT_LIST_COUNTERS_VALUES, UPDATE_LIST_COUNTERS, DELETE_LIST_COUNTERS);
+    }
+
+    private int rewriteDrifted(Long eventId, Map<Long, int[]> expected, Map<Long, int[]> stored,
+                               String insert, String update, String delete) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Map.Entry<Long, int[]> counters : expected.entrySet()) {
+            int[] current = stored.remove(counters.getKey());
+            Object[] row = {counters.getValue()[0], counters.getValue()[1], counters.getKey(), eventId};
+            if (current == null)
+                inserts.add(row);
+            else if (!Arrays.equals(current, counters.getValue()))
+                updates.add(row);
+        }
+        for (Long key : stored.keySet())
+            deletes.add(new Object[]{key, eventId});
+        if (!inserts.isEmpty())
+            jdbcTemplate.batchUpdate(insert, inserts);
+        if (!updates.isEmpty())
+            jdbcTemplate.batchUpdate(update, updates);
+        if (!deletes.isEmpty())
+            jdbcTemplate.batchUpdate(delete, deletes);
+        return inserts.size() + updates.size() + deletes.size();
+    }
+
+    private Map<Long, Integer> countByKey(String sql, Long eventId) {
+        Map<Long, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getLong(1), rs.getInt(2));
+        }, eventId);
+        return counts;
+    }
+
+    private Map<Long, int[]> countersByKey(String sql, Long eventId) {
+        Map<Long, int[]> counters = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counters.put(rs.getLong(1), new int[]{rs.getInt(2), rs.getInt(3)});
+        }, eventId);
+        return counters;
+    }
+}
@@ -1,6 +1,8 @@
 package com.ustudent.resquod.repository;
 
 import com.ustudent.resquod.model.Corporation;
+import com.ustudent.resquod.model.dao.CorpoData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -13,4 +15,14 @@ public interface CorporationRepository extends JpaRepository<Corporation,Long> {
     Optional<Corporation> findById(Long id);
     Optional<Corporation> findByName(String name);
     List<Corporation> findAll();
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.CorpoData(c.id, c.name) FROM Corporation c " +
+            "WHERE c.id > ?1 " +
+            "ORDER BY c.id")
+    List<CorpoData> findCorpoData(Long afterId, Pageable pageable);
+
+    @Query(value = "SELECT c.id FROM Corporation c " +
+            "JOIN c.users u " +
+            "WHERE u.id = ?1")
+    List<Long> findIdsByUserId(Long userId);
 }
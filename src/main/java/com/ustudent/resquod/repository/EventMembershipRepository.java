@@ -0,0 +1,49 @@
+package com.ustudent.resquod.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class EventMembershipRepository {
+
+    private static final String ADD_MEMBER =
+            "INSERT INTO events_users (events_id, user_id) VALUES (?, ?)";
+
+    private static final String SELECT_MEMBER_IDS =
+            "SELECT user_id FROM events_users WHERE events_id = ?";
+
+    private static final String SELECT_MEMBER_IDS_BY_ROOM =
+            "SELECT DISTINCT eu.user_id FROM events_users eu JOIN events e ON e.id = eu.events_id WHERE e.room_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EventMembershipRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the user to the event with a single-row insert, the (events_id, user_id) primary key
+     * is the existence check. Returns false when the user already belongs to the event,
+     * also when a concurrent join of the same user got there first.
+     */
+    public boolean addMember(Long eventId, Long userId) {
+        try {
+            return jdbcTemplate.update(ADD_MEMBER, eventId, userId) == 1;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public List<Long> findMemberIds(Long eventId) {
+        return jdbcTemplate.queryForList(SELECT_MEMBER_IDS, Long.class, eventId);
+    }
+
+    public List<Long> findMemberIdsByRoomId(Long roomId) {
+        return jdbcTemplate.queryForList(SELECT_MEMBER_IDS_BY_ROOM, Long.class, roomId);
+    }
+}
@@ -1,6 +1,8 @@
 package com.ustudent.resquod.repository;
 
 import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.dao.EventDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -16,9 +18,33 @@ public interface EventRepository extends JpaRepository<Event, Long> {
 
     Optional<Event> findByPassword(String password);
 
+    @Query(value = "SELECT e.id FROM Event e WHERE e.password = ?1")
+    Optional<Long> findIdByPassword(String password);
+
     List<Event> findAll();
 
-    Set<Event> findByAdministratorId(Long id);
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.EventDTO(e.id, e.name, e.administratorId, e.password, " +
+            "r.id, r.name, c.id, c.name) FROM Event e " +
+            "LEFT JOIN e.room r " +
+            "LEFT JOIN r.corporation c " +
+            "WHERE e.id > ?1 " +
+            "ORDER BY e.id")
+    List<EventDTO> findAllEventDTOs(Long afterId, Pageable pageable);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.EventDTO(e.id, e.name, e.administratorId, e.password, " +
+            "r.id, r.name, c.id, c.name) FROM Event e " +
+            "LEFT JOIN e.room r " +
+            "LEFT JOIN r.corporation c " +
+            "WHERE e.administratorId = ?1")
+    Set<EventDTO> findEventDTOsByAdministratorId(Long administratorId);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.EventDTO(e.id, e.name, e.administratorId, e.password, " +
+            "r.id, r.name, c.id, c.name) FROM Event e " +
+            "JOIN e.users u " +
+            "LEFT JOIN e.room r " +
+            "LEFT JOIN r.corporation c " +
+            "WHERE u.id = ?1")
+    Set<EventDTO> findEventDTOsByUserId(Long userId);
 
     @Query(value = "SELECT e FROM Event e " +
             "LEFT JOIN Room r ON r.id = e.room.id " +
@@ -29,4 +55,15 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             "INNER JOIN Room r ON r.id = e.room.id and r.corporation.id = ?1"
     )
     List<Event> findByCorpoId(Long corpoId);
+
+    @Query(value = "SELECT e.id FROM Event e WHERE e.room.id = ?1")
+    List<Long> findIdsByRoomId(Long roomId);
+
+    @Query(value = "SELECT e.id FROM Event e WHERE e.administratorId = ?1")
+    List<Long> findIdsByAdministratorId(Long administratorId);
+
+    @Query(value = "SELECT COUNT(u) > 0 FROM Event e " +
+            "JOIN e.users u " +
+            "WHERE e.id = ?1 AND u.id = ?2")
+    boolean isMember(Long eventId, Long userId);
 }
@@ -1,8 +1,12 @@
 package com.ustudent.resquod.repository;
 
 import com.ustudent.resquod.model.Position;
+import com.ustudent.resquod.model.dao.PositionData;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,9 +25,17 @@ public interface PositionRepository extends JpaRepository<Position,Long> {
             "WHERE p.id = ?1 AND u.email = ?2")
     Optional<Position> findByIdAndEmail(Long id, String email);
 
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries")})
     Optional<Position> findByTagId(String TagId);
 
-    @Query(value = "SELECT p FROM Position p " +
-            "WHERE p.tagId is null AND p.room.corporation.id = ?1")
-    List<Position> findCorpoNullTags(Long corpoId);
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries")})
+    @Query(value = "SELECT p.room.id FROM Position p WHERE p.tagId = ?1")
+    Optional<Long> findRoomIdByTagId(String tagId);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.PositionData(p.id, p.numberOfPosition, p.tagId, r.id, r.name) " +
+            "FROM Position p JOIN p.room r " +
+            "WHERE p.tagId is null AND r.corporation.id = ?1")
+    List<PositionData> findCorpoNullTags(Long corpoId);
 }
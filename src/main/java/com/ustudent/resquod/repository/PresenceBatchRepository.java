@@ -0,0 +1,72 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.dao.PendingCheckIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class PresenceBatchRepository {
+
+    private static final String INSERT_ABSENT_PRESENCES_FOR_EVENT_MEMBERS =
+            "INSERT INTO presences (presence, user_id, attendance_list_id) " +
+            "SELECT false, eu.user_id, ? FROM events_users eu WHERE eu.events_id = ?";
+
+    private static final String INSERT_ABSENT_PRESENCES_FOR_NEW_MEMBER =
+            "INSERT INTO presences (presence, user_id, attendance_list_id) " +
+            "SELECT false, ?, a.id FROM attendance_lists a WHERE a.event_id = ?";
+
+    private static final String MARK_PRESENT =
+            "UPDATE presences SET presence = true, date = ? WHERE id = ? AND date IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PresenceBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts one absent presence row per event member with a single INSERT ... SELECT.
+     * Returns the number of presence rows created.
+     */
+    public int insertAbsentPresencesForEventMembers(Long attendanceListId, Long eventId) {
+        return jdbcTemplate.update(INSERT_ABSENT_PRESENCES_FOR_EVENT_MEMBERS, attendanceListId, eventId);
+    }
+
+    /**
+     * Inserts one absent presence row per existing attendance list of the event for a member who has just joined.
+     * Returns the number of presence rows created.
+     */
+    public int insertAbsentPresencesForNewMember(Long eventId, Long userId) {
+        return jdbcTemplate.update(INSERT_ABSENT_PRESENCES_FOR_NEW_MEMBER, userId, eventId);
+    }
+
+    /**
+     * Marks the presences in one JDBC batch. Rows that already have a check-in date are left untouched.
+     * Returns the check-ins that were stored, drivers that do not report per-row counts get all of them.
+     */
+    public List<PendingCheckIn> markPresent(List<PendingCheckIn> checkIns) {
+        List<PendingCheckIn> stored = new ArrayList<>(checkIns.size());
+        if (checkIns.isEmpty())
+            return stored;
+        int[][] counts = jdbcTemplate.batchUpdate(MARK_PRESENT, checkIns, checkIns.size(), (ps, checkIn) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(checkIn.getDate()));
+            ps.setLong(2, checkIn.getPresenceId());
+        });
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 1 || count == Statement.SUCCESS_NO_INFO)
+                    stored.add(checkIns.get(i));
+                i++;
+            }
+        }
+        return stored;
+    }
+}
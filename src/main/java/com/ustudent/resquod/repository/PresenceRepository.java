@@ -2,9 +2,12 @@ package com.ustudent.resquod.repository;
 
 import com.ustudent.resquod.model.Presence;
 import com.ustudent.resquod.model.dao.PresenceData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -16,15 +19,24 @@ public interface PresenceRepository extends JpaRepository<Presence, Integer> {
             "FROM Presence p " +
             "INNER JOIN AttendanceList a ON a.id = p.attendanceList.id " +
             "INNER JOIN User u ON u.id = p.user.id " +
-            "WHERE u.email = ?1")
-    List<PresenceData> findPresencesByUserEmail(String email);
+            "WHERE u.email = ?1 AND a.id > ?2 " +
+            "ORDER BY a.id")
+    List<PresenceData> findPresencesByUserEmail(String email, Long afterAttendanceListId, Pageable pageable);
 
-    @Query(value = "SELECT p from Presence p " +
-            "JOIN User u ON u.id=p.user.id " +
-            "JOIN AttendanceList a ON a.id=p.attendanceList.id " +
-            "JOIN Event e ON e.id=a.event.id " +
-            "JOIN Room r ON r.id=e.room.id " +
-            "JOIN Position p2 ON p2.room.id=r.id " +
-            "WHERE u.id=?1 AND p2.tagId= ?2 AND a.startTime <= ?3 AND a.endTime >= ?3 order by a.startTime desc")
-    Optional<List<Presence>> findByDateAfter(Long userId, String nfcTag, LocalDateTime date);
+    Optional<Presence> findByUserIdAndAttendanceListId(Long userId, Long attendanceListId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE Presence p SET p.presence = true, p.date = ?3 " +
+            "WHERE p.user.id = ?1 AND p.attendanceList.id = ?2 AND p.date IS NULL")
+    int markPresent(Long userId, Long attendanceListId, LocalDateTime date);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.PresenceData(p.id, p.presence, p.date, u.id, a.id) " +
+            "FROM AttendanceList a " +
+            "JOIN a.event e " +
+            "JOIN e.users u " +
+            "LEFT JOIN Presence p ON p.attendanceList.id = a.id AND p.user.id = u.id " +
+            "WHERE u.email = ?1 AND a.id > ?2 " +
+            "ORDER BY a.id")
+    List<PresenceData> findMemberPresencesByUserEmail(String email, Long afterAttendanceListId, Pageable pageable);
 }
@@ -3,11 +3,15 @@ package com.ustudent.resquod.repository;
 import com.ustudent.resquod.model.Room;
 import com.ustudent.resquod.model.dao.EventDTO;
 import com.ustudent.resquod.model.dao.RoomDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 public interface RoomRepository extends JpaRepository<Room,Long> {
 
@@ -21,7 +25,13 @@ public interface RoomRepository extends JpaRepository<Room,Long> {
             "WHERE r.id = ?1 AND u.email = ?2")
     Optional<Room> findByRoomIdAndOwnerEmail(Long id, String email);
 
-    Set<Room> findByCorporationId(Long id);
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries")})
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.RoomDTO(r.id, r.name, c.id, c.name) FROM Room r " +
+            "JOIN r.corporation c " +
+            "WHERE c.id = ?1 AND r.id > ?2 " +
+            "ORDER BY r.id")
+    List<RoomDTO> findRoomDTOsByCorporationId(Long corporationId, Long afterId, Pageable pageable);
 
     @Query(value = "DELETE FROM Room r WHERE r.id=?1")
     void removeRoomById(Long id);
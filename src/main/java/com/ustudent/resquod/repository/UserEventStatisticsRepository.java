@@ -0,0 +1,28 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.UserEventStatistics;
+import com.ustudent.resquod.model.dao.UserAttendanceStatistics;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserEventStatisticsRepository extends JpaRepository<UserEventStatistics, Long> {
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserAttendanceStatistics(u.id, u.email, u.name, u.surname, " +
+            "s.eventId, s.presentCount, s.totalCount) " +
+            "FROM UserEventStatistics s, User u " +
+            "WHERE u.id = s.userId AND s.eventId = ?1 AND s.userId = ?2")
+    Optional<UserAttendanceStatistics> findStatistics(Long eventId, Long userId);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserAttendanceStatistics(u.id, u.email, u.name, u.surname, " +
+            "s.eventId, s.presentCount, s.totalCount) " +
+            "FROM UserEventStatistics s, User u " +
+            "WHERE u.id = s.userId AND s.eventId = ?1 AND s.userId > ?2 " +
+            "ORDER BY s.userId")
+    List<UserAttendanceStatistics> findEventStatistics(Long eventId, Long afterUserId, Pageable pageable);
+}
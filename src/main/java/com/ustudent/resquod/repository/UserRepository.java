@@ -2,10 +2,15 @@ package com.ustudent.resquod.repository;
 
 import com.ustudent.resquod.model.User;
 import com.ustudent.resquod.model.dao.LoginUserData;
+import com.ustudent.resquod.model.dao.UserCredentials;
 import com.ustudent.resquod.model.dao.UserData;
+import com.ustudent.resquod.security.AuthenticatedUser;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,17 +21,36 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    @Query(value = "SELECT new com.ustudent.resquod.security.AuthenticatedUser(u.id, u.email, u.role) " +
+            "FROM User u WHERE u.email = ?1")
+    Optional<AuthenticatedUser> findPrincipalByEmail(String email);
+
     @Query(value = "SELECT new com.ustudent.resquod.model.dao.LoginUserData(u.email, u.password, u.role) " +
             "FROM  User u WHERE u.email = ?1")
     Optional<LoginUserData> findUserPassword(String email);
 
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserCredentials(u.id, u.email, u.password, u.role, u.name, u.surname) " +
+            "FROM User u WHERE u.email = ?1")
+    Optional<UserCredentials> findCredentials(String email);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE User u SET u.password = ?3 WHERE u.id = ?1 AND u.password = ?2")
+    int replacePassword(Long id, String oldPassword, String newPassword);
+
     @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserData(u.email,u.role, u.name, u.surname) " +
             "FROM  User u WHERE u.email = ?1")
     Optional<UserData> findUserData(String email);
 
-    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserData(u.email,u.role, u.name, u.surname) FROM  User u " +
-            "INNER JOIN u.events e ON e.id = ?1")
-    List<UserData> findUserDataByEventId(Long eventId);
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserData(u.id, u.email, u.role, u.name, u.surname) " +
+            "FROM User u WHERE u.id = ?1")
+    Optional<UserData> findUserDataById(Long id);
+
+    @Query(value = "SELECT new com.ustudent.resquod.model.dao.UserData(u.id, u.email, u.role, u.name, u.surname) FROM  User u " +
+            "INNER JOIN u.events e ON e.id = ?1 " +
+            "WHERE u.id > ?2 " +
+            "ORDER BY u.id")
+    List<UserData> findUserDataByEventId(Long eventId, Long afterId, Pageable pageable);
 
     List<User> findAll();
 }
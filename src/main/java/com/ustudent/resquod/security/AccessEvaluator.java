@@ -0,0 +1,84 @@
+package com.ustudent.resquod.security;
+
+import com.ustudent.resquod.exception.PermissionDeniedException;
+import com.ustudent.resquod.model.dao.AccessStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Answers the ADMIN / corporation OWNER / event administrator checks from the cached principal,
+ * so a permission check costs set lookups instead of queries.
+ */
+@Component
+public class AccessEvaluator {
+
+    private static final String ADMIN = "ROLE_ADMIN";
+    private static final String OWNER = "ROLE_OWNER";
+
+    private final PrincipalCache principalCache;
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    @Autowired
+    public AccessEvaluator(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    /**
+     * Admins manage every corporation, owners the corporations they belong to.
+     */
+    public boolean canManageCorporation(AuthenticatedUser user, Long corporationId) {
+        return record(user.hasRole(ADMIN) || (user.hasRole(OWNER) && user.isMemberOf(corporationId)));
+    }
+
+    /**
+     * Admins see every corporation, the other users the corporations they belong to.
+     */
+    public boolean canViewCorporation(AuthenticatedUser user, Long corporationId) {
+        return record(user.hasRole(ADMIN) || user.isMemberOf(corporationId));
+    }
+
+    /**
+     * Event administrators manage their events, corporation managers every event in the corporation.
+     * The corporation id is only resolved when the event administrator check fails.
+     */
+    public boolean canManageEvent(AuthenticatedUser user, Long eventId, Supplier<Long> corporationId) {
+        if (user.hasRole(ADMIN) || user.administers(eventId))
+            return record(true);
+        return record(user.hasRole(OWNER) && user.isMemberOf(corporationId.get()));
+    }
+
+    /**
+     * Only admins and the event's own administrator may run the event's attendance.
+     */
+    public boolean canAdministerEvent(AuthenticatedUser user, Long eventId) {
+        return record(user.hasRole(ADMIN) || user.administers(eventId));
+    }
+
+    public void checkCorporation(AuthenticatedUser user, Long corporationId) throws PermissionDeniedException {
+        if (!canManageCorporation(user, corporationId))
+            throw new PermissionDeniedException();
+    }
+
+    /**
+     * Called after the principal gains or loses a corporation or an administered event.
+     */
+    public void membershipChanged(AuthenticatedUser user) {
+        principalCache.invalidate(user.getEmail());
+    }
+
+    public AccessStatistics getStatistics() {
+        return new AccessStatistics(principalCache.getHits(), principalCache.getMisses(), granted.sum(), denied.sum());
+    }
+
+    private boolean record(boolean allowed) {
+        if (allowed)
+            granted.increment();
+        else
+            denied.increment();
+        return allowed;
+    }
+}
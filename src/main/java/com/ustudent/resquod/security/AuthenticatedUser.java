@@ -0,0 +1,69 @@
+package com.ustudent.resquod.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Set;
+
+public class AuthenticatedUser {
+    private final Long id;
+    private final String email;
+    private final String role;
+    private final Set<Long> corporationIds;
+    private final Set<Long> administeredEventIds;
+
+    public AuthenticatedUser(Long id, String email, String role) {
+        this(id, email, role, Collections.emptySet(), Collections.emptySet());
+    }
+
+    public AuthenticatedUser(Long id, String email, String role, Set<Long> corporationIds, Set<Long> administeredEventIds) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.corporationIds = Collections.unmodifiableSet(corporationIds);
+        this.administeredEventIds = Collections.unmodifiableSet(administeredEventIds);
+    }
+
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Set<Long> getCorporationIds() {
+        return corporationIds;
+    }
+
+    public boolean hasRole(String role) {
+        return this.role.equals(role);
+    }
+
+    public Set<Long> getAdministeredEventIds() {
+        return administeredEventIds;
+    }
+
+    public boolean isMemberOf(Long corporationId) {
+        return corporationIds.contains(corporationId);
+    }
+
+    public boolean administers(Long eventId) {
+        return administeredEventIds.contains(eventId);
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -4,6 +4,7 @@ import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.ustudent.resquod.exception.WrongTokenException;
 import com.ustudent.resquod.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,10 +23,17 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class JwtFilter extends BasicAuthenticationFilter {
     @Autowired
     private JwtService jwtService;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     public JwtFilter(AuthenticationManager authenticationManager) {
         super(authenticationManager);
@@ -55,11 +63,39 @@ public class JwtFilter extends BasicAuthenticationFilter {
         }
     }
 
+    /**
+     * Timed as resquod.jwt.authentication, tagged cached, verified or rejected.
+     */
     private UsernamePasswordAuthenticationToken getAuthentication(String token) {
+        long start = System.nanoTime();
+        String outcome = "rejected";
+        try {
+            UsernamePasswordAuthenticationToken cached = verifiedTokenCache.get(token);
+            if (cached != null) {
+                outcome = "cached";
+                return cached;
+            }
+            UsernamePasswordAuthenticationToken verified = verify(token);
+            outcome = "verified";
+            return verified;
+        } finally {
+            meterRegistry.timer("resquod.jwt.authentication", "outcome", outcome)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private UsernamePasswordAuthenticationToken verify(String token) {
+        long generation = verifiedTokenCache.generation();
         DecodedJWT decodedJWT = jwtService.verify(token);
         Map<String, Claim> claims = decodedJWT.getClaims();
         Set<SimpleGrantedAuthority> simpleGrantedAuthorities = Collections.singleton(new SimpleGrantedAuthority(claims.get("role").asString()));
-        return new UsernamePasswordAuthenticationToken(claims.get("email").asString(), null, simpleGrantedAuthorities);
+        AuthenticatedUser principal = principalCache.get(claims.get("email").asString());
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null, simpleGrantedAuthorities);
+        long expiresAt = System.currentTimeMillis() + principalCache.remainingMillis(principal);
+        if (decodedJWT.getExpiresAt() != null)
+            expiresAt = Math.min(expiresAt, decodedJWT.getExpiresAt().getTime());
+        verifiedTokenCache.put(token, principal, simpleGrantedAuthorities, expiresAt, generation);
+        return authentication;
     }
 }
 
@@ -0,0 +1,101 @@
+package com.ustudent.resquod.security;
+
+import com.ustudent.resquod.exception.WrongTokenException;
+import com.ustudent.resquod.repository.CorporationRepository;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the authenticated user's id, role, corporation ids and administered event ids for a short time,
+ * so services do not have to reload the User entity on every request.
+ * Entries are invalidated when the user's data or memberships change.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final CorporationRepository corporationRepository;
+    private final EventRepository eventRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrincipalCache(UserRepository userRepository,
+                          CorporationRepository corporationRepository,
+                          EventRepository eventRepository,
+                          VerifiedTokenCache verifiedTokenCache,
+                          @Value("${resquod.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${resquod.principal-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.corporationRepository = corporationRepository;
+        this.eventRepository = eventRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    public AuthenticatedUser get(String email) throws WrongTokenException {
+        CachedPrincipal cached = principals.get(email);
+        if (cached != null && System.nanoTime() - cached.expiresAt < 0) {
+            hits.increment();
+            return cached.principal;
+        }
+        misses.increment();
+        AuthenticatedUser user = userRepository.findPrincipalByEmail(email).orElseThrow(WrongTokenException::new);
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(),
+                new HashSet<>(corporationRepository.findIdsByUserId(user.getId())),
+                new HashSet<>(eventRepository.findIdsByAdministratorId(user.getId())));
+        if (principals.size() >= maxEntries)
+            principals.clear();
+        principals.put(email, new CachedPrincipal(principal, System.nanoTime() + ttlNanos));
+        return principal;
+    }
+
+    /**
+     * Milliseconds the principal stays cached, 0 when it is no longer the cached instance for its email.
+     */
+    public long remainingMillis(AuthenticatedUser principal) {
+        CachedPrincipal cached = principals.get(principal.getEmail());
+        if (cached == null || cached.principal != principal)
+            return 0;
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(cached.expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * Drops the cached principal together with the authentications built from it.
+     */
+    public void invalidate(String email) {
+        principals.remove(email);
+        verifiedTokenCache.invalidateUser(email);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static final class CachedPrincipal {
+        private final AuthenticatedUser principal;
+        private final long expiresAt;
+
+        private CachedPrincipal(AuthenticatedUser principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.ustudent.resquod.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HMAC signing keys shared through a key file, one "kid=base64 secret" line per key.
+ * The kid is the key's creation time in epoch seconds, the newest key signs new tokens
+ * and the older retained keys still verify tokens issued before a rotation.
+ * Instances pointed at the same file issue and accept each other's tokens.
+ * The file is created readable by its owner only, and startup fails when it is open to other users.
+ */
+@Component
+public class SigningKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyRing.class);
+    private static final int SECRET_BYTES = 32;
+    private static final long MISS_REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    private static final Set<OpenOption> OPEN_OPTIONS = EnumSet.of(StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    private final Path keyFile;
+    private final boolean posix;
+    private final long rotationIntervalSeconds;
+    private final int retainedKeys;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong lastMissRefresh = new AtomicLong(System.nanoTime() - MISS_REFRESH_INTERVAL_NANOS);
+    private volatile Keys keys;
+
+    @Autowired
+    public SigningKeyRing(@Value("${resquod.jwt.key-file}") String keyFile,
+                          @Value("${resquod.jwt.rotation-interval-hours:24}") long rotationIntervalHours,
+                          @Value("${resquod.jwt.retained-keys:8}") int retainedKeys,
+                          VerifiedTokenCache verifiedTokenCache) {
+        this.keyFile = Paths.get(keyFile);
+        if (!this.keyFile.isAbsolute())
+            throw new IllegalStateException("resquod.jwt.key-file must be an absolute path, got " + keyFile);
+        this.posix = this.keyFile.getFileSystem().supportedFileAttributeViews().contains("posix");
+        this.rotationIntervalSeconds = TimeUnit.HOURS.toSeconds(rotationIntervalHours);
+        this.retainedKeys = Math.max(retainedKeys, 1);
+        this.verifiedTokenCache = verifiedTokenCache;
+        checkPermissions();
+        refresh();
+    }
+
+    public SigningKey current() {
+        return keys.current;
+    }
+
+    /**
+     * Looks the key up by kid. An unknown kid may belong to a key another instance has just added,
+     * so the key file is re-read, at most once every few seconds.
+     */
+    public Optional<SigningKey> find(String kid) {
+        SigningKey key = keys.byId.get(kid);
+        if (key != null)
+            return Optional.of(key);
+        long last = lastMissRefresh.get();
+        if (System.nanoTime() - last >= MISS_REFRESH_INTERVAL_NANOS && lastMissRefresh.compareAndSet(last, System.nanoTime()))
+            refresh();
+        return Optional.ofNullable(keys.byId.get(kid));
+    }
+
+    /**
+     * Re-reads the key file and adds a new key when the newest one is older than the rotation interval.
+     * Keys beyond the retained count are dropped, tokens signed with them stop verifying.
+     */
+    @Scheduled(fixedDelayString = "${resquod.jwt.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        try (FileChannel channel = posix
+                ? FileChannel.open(keyFile, OPEN_OPTIONS, PosixFilePermissions.asFileAttribute(OWNER_ONLY))
+                : FileChannel.open(keyFile, OPEN_OPTIONS);
+             FileLock ignored = channel.lock()) {
+            TreeMap<Long, byte[]> secrets = read(channel);
+            long now = Instant.now().getEpochSecond();
+            if (secrets.isEmpty() || now - secrets.lastKey() >= rotationIntervalSeconds) {
+                long kid = secrets.isEmpty() ? now : Math.max(now, secrets.lastKey() + 1);
+                byte[] secret = new byte[SECRET_BYTES];
+                random.nextBytes(secret);
+                secrets.put(kid, secret);
+                while (secrets.size() > retainedKeys)
+                    secrets.pollFirstEntry();
+                write(channel, secrets);
+                log.info("Added signing key {} to {}", kid, keyFile);
+            }
+            update(secrets);
+        } catch (IOException e) {
+            if (keys == null)
+                throw new UncheckedIOException("Could not load signing keys from " + keyFile, e);
+            log.error("Could not refresh signing keys from {}", keyFile, e);
+        }
+    }
+
+    private void checkPermissions() {
+        if (!posix || !Files.exists(keyFile))
+            return;
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(keyFile);
+            if (!OWNER_ONLY.containsAll(permissions))
+                throw new IllegalStateException("Signing key file " + keyFile + " is accessible to other users ("
+                        + PosixFilePermissions.toString(permissions) + "), restrict it to rw-------");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the permissions of " + keyFile, e);
+        }
+    }
+
+    private TreeMap<Long, byte[]> read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0)
+                break;
+        }
+        TreeMap<Long, byte[]> secrets = new TreeMap<>();
+        for (String line : new String(buffer.array(), StandardCharsets.US_ASCII).split("\n")) {
+            int separator = line.indexOf('=');
+            if (line.trim().isEmpty() || separator < 0)
+                continue;
+            try {
+                secrets.put(Long.parseLong(line.substring(0, separator).trim()),
+                        Base64.getDecoder().decode(line.substring(separator + 1).trim()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping malformed signing key line in {}", keyFile);
+            }
+        }
+        return secrets;
+    }
+
+    private void write(FileChannel channel, TreeMap<Long, byte[]> secrets) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<Long, byte[]> secret : secrets.entrySet())
+            content.append(secret.getKey()).append('=').append(Base64.getEncoder().encodeToString(secret.getValue())).append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII));
+        channel.truncate(0);
+        while (buffer.hasRemaining())
+            channel.write(buffer, buffer.position());
+        channel.force(true);
+    }
+
+    private void update(TreeMap<Long, byte[]> secrets) {
+        Keys previous = keys;
+        if (previous != null && previous.byId.keySet().equals(keyIds(secrets)))
+            return;
+        Map<String, SigningKey> byId = new HashMap<>();
+        for (Map.Entry<Long, byte[]> secret : secrets.entrySet()) {
+            String kid = String.valueOf(secret.getKey());
+            SigningKey key = previous != null && previous.byId.containsKey(kid)
+                    ? previous.byId.get(kid)
+                    : new SigningKey(kid, Algorithm.HMAC256(secret.getValue()));
+            byId.put(kid, key);
+        }
+        keys = new Keys(byId.get(String.valueOf(secrets.lastKey())), byId);
+        if (previous != null && !byId.keySet().containsAll(previous.byId.keySet()))
+            verifiedTokenCache.invalidateAll();
+    }
+
+    private static Set<String> keyIds(TreeMap<Long, byte[]> secrets) {
+        Set<String> ids = new HashSet<>();
+        for (Long kid : secrets.keySet())
+            ids.add(String.valueOf(kid));
+        return ids;
+    }
+
+    public static final class SigningKey {
+        private final String id;
+        private final Algorithm algorithm;
+        private final JWTVerifier verifier;
+
+        private SigningKey(String id, Algorithm algorithm) {
+            this.id = id;
+            this.algorithm = algorithm;
+            this.verifier = JWT.require(algorithm).build();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public JWTVerifier getVerifier() {
+            return verifier;
+        }
+    }
+
+    private static final class Keys {
+        private final SigningKey current;
+        private final Map<String, SigningKey> byId;
+
+        private Keys(SigningKey current, Map<String, SigningKey> byId) {
+            this.current = current;
+            this.byId = Collections.unmodifiableMap(byId);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ustudent.resquod.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps the SHA-256 digest of an already verified token to the principal and authorities resolved for it,
+ * every hit gets an Authentication of its own. The caller passes the earlier of the token's expiry and the
+ * principal's expiry in PrincipalCache, an entry lives until then or until the TTL passes.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<String, CachedAuthentication> authentications = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${resquod.token-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${resquod.token-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    public UsernamePasswordAuthenticationToken get(String token) {
+        if (maxEntries <= 0)
+            return null;
+        String digest = digest(token);
+        CachedAuthentication cached = authentications.get(digest);
+        if (cached == null)
+            return null;
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            authentications.remove(digest, cached);
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(cached.principal, null, cached.authorities);
+    }
+
+    /**
+     * Returns the generation to pass to {@link #put}, read it before verifying the token
+     * so a verification that races with a key rotation is not cached.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * The entry expires at expiresAt, epoch milliseconds, or after the TTL when that comes first.
+     */
+    public void put(String token, AuthenticatedUser principal, Collection<? extends GrantedAuthority> authorities,
+                    long expiresAt, long generation) {
+        if (maxEntries <= 0)
+            return;
+        long now = System.currentTimeMillis();
+        long expires = Math.min(now + ttlMillis, expiresAt);
+        if (expires <= now)
+            return;
+        if (authentications.size() >= maxEntries) {
+            authentications.values().removeIf(cached -> cached.expiresAt <= now);
+            if (authentications.size() >= maxEntries)
+                authentications.clear();
+        }
+        String digest = digest(token);
+        CachedAuthentication cached = new CachedAuthentication(principal,
+                Collections.unmodifiableList(new ArrayList<>(authorities)), expires);
+        authentications.put(digest, cached);
+        if (this.generation.get() != generation)
+            authentications.remove(digest, cached);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        authentications.clear();
+    }
+
+    public void invalidateUser(String email) {
+        authentications.values().removeIf(cached -> cached.principal.getEmail().equals(email));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+        private final AuthenticatedUser principal;
+        private final List<GrantedAuthority> authorities;
+        private final long expiresAt;
+
+        private CachedAuthentication(AuthenticatedUser principal, List<GrantedAuthority> authorities, long expiresAt) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
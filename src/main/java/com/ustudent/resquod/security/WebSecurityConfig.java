@@ -24,7 +24,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
             //Api
             "/test1",
             "/login*",
-            "/register*"
+            "/register*",
+            "/actuator/health"
             // other public endpoints of your API may be appended to this array
     };
 
@@ -39,7 +40,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/test1").permitAll()
                 .antMatchers("/test2", "/adminEvents").authenticated()
                 .antMatchers("/test3").hasRole("ADMIN")
-                .antMatchers("/corpoRegister", "/allEvents", "/allCorpos").hasAnyAuthority("ROLE_ADMIN")
+                .antMatchers("/corpoRegister", "/allEvents", "/allCorpos", "/tagCacheStats", "/accessStats", "/attendanceStats/reconcile", "/actuator/**").hasAnyAuthority("ROLE_ADMIN")
                 .antMatchers("/positionPatch").hasAnyAuthority("ROLE_ADMIN", "ROLE_OWNER")
                 .antMatchers("/addUser").hasAnyAuthority("ROLE_ADMIN", "ROLE_OWNER")
                 .and().addFilter(new JwtFilter(authenticationManager()))
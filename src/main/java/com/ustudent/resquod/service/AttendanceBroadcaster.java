@@ -0,0 +1,287 @@
+package com.ustudent.resquod.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ustudent.resquod.exception.TooManySubscribersException;
+import com.ustudent.resquod.model.dao.LivePresence;
+import com.ustudent.resquod.model.dao.PendingCheckIn;
+import com.ustudent.resquod.model.dao.UserData;
+import com.ustudent.resquod.repository.AttendanceListRepository;
+import com.ustudent.resquod.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes check-ins of attendance lists to their Server-Sent Events subscribers.
+ * Publishing only serializes the event once and offers it to each subscriber's bounded buffer,
+ * a small sender pool writes the buffers out. A subscriber whose buffer overflows is disconnected
+ * and gets a fresh snapshot when it reconnects.
+ * Check-ins stored by this instance are pushed right away. Check-ins stored by other instances are found by polling
+ * the presences of the lists that have subscribers here, so a dashboard sees every check-in whichever instance
+ * it is connected to. Each user is announced once per list, whichever way their check-in arrived first.
+ */
+@Component
+public class AttendanceBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceBroadcaster.class);
+    private static final String SNAPSHOT = "snapshot";
+    private static final String CHECK_IN = "checkIn";
+
+    private final UserRepository userRepository;
+    private final AttendanceListRepository attendanceListRepository;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final boolean pollEnabled;
+    private final long pollLookbackMillis;
+    private final ExecutorService senders;
+    private final ConcurrentHashMap<Long, ListFeed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Autowired
+    public AttendanceBroadcaster(UserRepository userRepository, AttendanceListRepository attendanceListRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${resquod.live.threads:2}") int threads,
+                                 @Value("${resquod.live.buffer-size:256}") int bufferSize,
+                                 @Value("${resquod.live.max-subscribers:1000}") int maxSubscribers,
+                                 @Value("${resquod.live.timeout-ms:1800000}") long timeoutMillis,
+                                 @Value("${resquod.live.poll.enabled:true}") boolean pollEnabled,
+                                 @Value("${resquod.live.poll.lookback-ms:60000}") long pollLookbackMillis) {
+        this.userRepository = userRepository;
+        this.attendanceListRepository = attendanceListRepository;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.pollEnabled = pollEnabled;
+        this.pollLookbackMillis = pollLookbackMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "live-attendance-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers the subscriber before the snapshot is read, check-ins stored in between are sent
+     * after the snapshot, so a client may see a user both in the snapshot and in a checkIn event.
+     */
+    public SseEmitter subscribe(Long attendanceListId, Supplier<List<LivePresence>> snapshot) throws TooManySubscribersException {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManySubscribersException();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(attendanceListId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        ListFeed feed = feeds.compute(attendanceListId, (id, listFeed) -> {
+            ListFeed updated = listFeed != null ? listFeed : new ListFeed();
+            updated.subscribers.add(subscriber);
+            return updated;
+        });
+        try {
+            List<LivePresence> present = snapshot.get();
+            for (LivePresence presence : present)
+                feed.announced.add(presence.getUserId());
+            emitter.send(SseEmitter.event().name(SNAPSHOT).data(objectMapper.writeValueAsString(present), MediaType.APPLICATION_JSON));
+        } catch (IOException | RuntimeException e) {
+            remove(subscriber);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscriber.start();
+        return emitter;
+    }
+
+    public void checkedIn(Long userId, Long attendanceListId, LocalDateTime date) {
+        ListFeed feed = feeds.get(attendanceListId);
+        if (feed == null || !feed.announced.add(userId))
+            return;
+        Optional<UserData> user = userRepository.findUserDataById(userId);
+        if (!user.isPresent())
+            return;
+        publish(feed, new LivePresence(attendanceListId, userId, user.get().getEmail(),
+                user.get().getName(), user.get().getSurname(), date));
+    }
+
+    public void checkedIn(List<PendingCheckIn> checkIns) {
+        if (feeds.isEmpty())
+            return;
+        for (PendingCheckIn checkIn : checkIns)
+            checkedIn(checkIn.getUserId(), checkIn.getAttendanceListId(), checkIn.getDate());
+    }
+
+    /**
+     * Picks up the check-ins other instances stored for the lists subscribed here. Check-ins dated up to
+     * poll.lookback-ms before the poll are read again, which covers flush delays and clock skew between instances,
+     * the users already announced are skipped.
+     */
+    @Scheduled(fixedDelayString = "${resquod.live.poll.interval-ms:2000}")
+    public void pollCheckIns() {
+        if (!pollEnabled || feeds.isEmpty())
+            return;
+        List<LivePresence> presences;
+        try {
+            presences = attendanceListRepository.findLivePresencesSince(new ArrayList<>(feeds.keySet()),
+                    LocalDateTime.now().minus(Duration.ofMillis(pollLookbackMillis)));
+        } catch (DataAccessException e) {
+            log.warn("Could not poll check-ins of {} subscribed lists", feeds.size(), e);
+            return;
+        }
+        for (LivePresence presence : presences) {
+            ListFeed feed = feeds.get(presence.getAttendanceListId());
+            if (feed != null && feed.announced.add(presence.getUserId()))
+                publish(feed, presence);
+        }
+    }
+
+    private void publish(ListFeed feed, LivePresence presence) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(presence);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize check-in of list {}", presence.getAttendanceListId(), e);
+            return;
+        }
+        LiveEvent event = new LiveEvent(CHECK_IN, data);
+        for (Subscriber subscriber : feed.subscribers)
+            subscriber.offer(event);
+    }
+
+    /**
+     * Keeps idle connections open through proxies and finds the clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${resquod.live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (ListFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers)
+                subscriber.offer(LiveEvent.HEARTBEAT);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true))
+            return;
+        subscriberCount.decrementAndGet();
+        feeds.computeIfPresent(subscriber.attendanceListId, (id, feed) -> {
+            feed.subscribers.remove(subscriber);
+            return feed.subscribers.isEmpty() ? null : feed;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ListFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers)
+                subscriber.emitter.complete();
+        }
+        senders.shutdown();
+    }
+
+    /**
+     * The subscribers of one list and the users already announced to them, by the snapshot or a checkIn event.
+     */
+    private static final class ListFeed {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Set<Long> announced = ConcurrentHashMap.newKeySet();
+    }
+
+    private final class Subscriber {
+        private final Long attendanceListId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<LiveEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private volatile boolean started;
+
+        private Subscriber(Long attendanceListId, SseEmitter emitter) {
+            this.attendanceListId = attendanceListId;
+            this.emitter = emitter;
+        }
+
+        private void start() {
+            started = true;
+            schedule();
+        }
+
+        private void offer(LiveEvent event) {
+            if (buffer.offer(event)) {
+                schedule();
+            } else if (event != LiveEvent.HEARTBEAT) {
+                log.debug("Disconnecting slow subscriber of list {}", attendanceListId);
+                remove(this);
+                emitter.complete();
+            }
+        }
+
+        private void schedule() {
+            if (!started || buffer.isEmpty() || !scheduled.compareAndSet(false, true))
+                return;
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                LiveEvent event;
+                while ((event = buffer.poll()) != null)
+                    emitter.send(event.build());
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            schedule();
+        }
+    }
+
+    private static final class LiveEvent {
+        private static final LiveEvent HEARTBEAT = new LiveEvent(null, null);
+
+        private final String name;
+        private final String data;
+
+        private LiveEvent(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder build() {
+            if (name == null)
+                return SseEmitter.event().comment("keepalive");
+            return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
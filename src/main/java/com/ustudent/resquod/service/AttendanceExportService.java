@@ -0,0 +1,140 @@
+package com.ustudent.resquod.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ustudent.resquod.exception.EventNotFoundException;
+import com.ustudent.resquod.exception.InvalidInputException;
+import com.ustudent.resquod.exception.PermissionDeniedException;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.dao.AttendanceExportRow;
+import com.ustudent.resquod.repository.AttendanceExportRepository;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes attendance exports straight from the JDBC cursor to the response, row by row.
+ * Permissions are checked on the request thread, the returned body runs later on an MVC async thread.
+ */
+@Service
+public class AttendanceExportService {
+
+    public static final String CSV = "csv";
+    public static final String JSON_LINES = "jsonl";
+
+    private static final String CSV_HEADER = "eventId,eventName,attendanceListId,attendanceListName,startTime,endTime," +
+            "userId,email,name,surname,present,date";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final AttendanceExportRepository attendanceExportRepository;
+    private final EventRepository eventRepository;
+    private final AccessEvaluator accessEvaluator;
+    private final ObjectWriter rowWriter;
+
+    @Autowired
+    public AttendanceExportService(AttendanceExportRepository attendanceExportRepository,
+                                   EventRepository eventRepository,
+                                   AccessEvaluator accessEvaluator,
+                                   ObjectMapper objectMapper) {
+        this.attendanceExportRepository = attendanceExportRepository;
+        this.eventRepository = eventRepository;
+        this.accessEvaluator = accessEvaluator;
+        this.rowWriter = objectMapper.writerFor(AttendanceExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public StreamingResponseBody exportEvent(Long eventId, String format)
+            throws EventNotFoundException, PermissionDeniedException, InvalidInputException {
+        checkFormat(format);
+        Event event = eventRepository.findById(eventId).orElseThrow(EventNotFoundException::new);
+        if (!accessEvaluator.canManageEvent(AuthenticatedUser.current(), eventId, () -> event.getRoom().getCorporation().getId()))
+            throw new PermissionDeniedException();
+        return output -> write(output, format, consumer -> attendanceExportRepository.exportEvent(eventId, consumer));
+    }
+
+    public StreamingResponseBody exportCorporation(Long corporationId, String format)
+            throws PermissionDeniedException, InvalidInputException {
+        checkFormat(format);
+        accessEvaluator.checkCorporation(AuthenticatedUser.current(), corporationId);
+        return output -> write(output, format, consumer -> attendanceExportRepository.exportCorporation(corporationId, consumer));
+    }
+
+    public static String contentType(String format) {
+        return JSON_LINES.equals(format) ? "application/x-ndjson" : "text/csv";
+    }
+
+    private void checkFormat(String format) throws InvalidInputException {
+        if (!CSV.equals(format) && !JSON_LINES.equals(format))
+            throw new InvalidInputException();
+    }
+
+    private void write(OutputStream output, String format, Consumer<Consumer<AttendanceExportRow>> export) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            if (JSON_LINES.equals(format)) {
+                JsonGenerator generator = rowWriter.getFactory().createGenerator(writer);
+                generator.setRootValueSeparator(null);
+                export.accept(row -> writeJsonLine(generator, row));
+                generator.flush();
+            } else {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                export.accept(row -> writeCsvLine(writer, row));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeJsonLine(JsonGenerator generator, AttendanceExportRow row) {
+        try {
+            rowWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, AttendanceExportRow row) {
+        try {
+            writer.write(row.getEventId() + "," + csv(row.getEventName()) + "," + row.getAttendanceListId() + ","
+                    + csv(row.getAttendanceListName()) + "," + csv(row.getStartTime()) + "," + csv(row.getEndTime()) + ","
+                    + row.getUserId() + "," + csv(row.getEmail()) + "," + csv(row.getName()) + "," + csv(row.getSurname()) + ","
+                    + row.getPresent() + "," + csv(row.getDate()));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quotes the cell when needed. A text cell starting with a character spreadsheets read as the start of a formula
+     * is prefixed with an apostrophe, so user-entered names never run as formulas when the export is opened.
+     */
+    private static String csv(Object value) {
+        if (value == null)
+            return "";
+        String text = value.toString();
+        if (!text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0)
+            return "\"'" + text.replace("\"", "\"\"") + '"';
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,22 +1,33 @@
 package com.ustudent.resquod.service;
 
+import com.ustudent.resquod.configuration.ReadReplica;
 
 import com.ustudent.resquod.exception.*;
 import com.ustudent.resquod.model.AttendanceList;
 import com.ustudent.resquod.model.Event;
 import com.ustudent.resquod.model.Room;
-import com.ustudent.resquod.model.User;
 import com.ustudent.resquod.model.dao.*;
 import com.ustudent.resquod.repository.AttendanceListRepository;
+import com.ustudent.resquod.repository.EventMembershipRepository;
 import com.ustudent.resquod.repository.EventRepository;
 import com.ustudent.resquod.repository.RoomRepository;
 import com.ustudent.resquod.repository.UserRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class AttendanceListService {
@@ -26,50 +37,96 @@ public class AttendanceListService {
     private EventRepository eventRepository;
     private UserRepository userRepository;
     private RoomRepository roomRepository;
+    private TagResolutionCache tagResolutionCache;
+    private KeysetPagination keysetPagination;
+    private AccessEvaluator accessEvaluator;
+    private AttendanceStatisticsService attendanceStatisticsService;
+    private AttendanceBroadcaster attendanceBroadcaster;
+    private EventMembershipRepository eventMembershipRepository;
+    private VersionRegistry versionRegistry;
 
 
     @Autowired
-    AttendanceListService(AttendanceListRepository attendanceListRepository, PresenceService presenceService, EventRepository eventRepository, UserRepository userRepository, RoomRepository roomRepository) {
+    AttendanceListService(AttendanceListRepository attendanceListRepository, PresenceService presenceService, EventRepository eventRepository, UserRepository userRepository, RoomRepository roomRepository, TagResolutionCache tagResolutionCache, KeysetPagination keysetPagination, AccessEvaluator accessEvaluator, AttendanceStatisticsService attendanceStatisticsService, AttendanceBroadcaster attendanceBroadcaster, EventMembershipRepository eventMembershipRepository, VersionRegistry versionRegistry) {
         this.attendanceListRepository = attendanceListRepository;
         this.presenceService = presenceService;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.roomRepository = roomRepository;
+        this.tagResolutionCache = tagResolutionCache;
+        this.keysetPagination = keysetPagination;
+        this.accessEvaluator = accessEvaluator;
+        this.attendanceStatisticsService = attendanceStatisticsService;
+        this.attendanceBroadcaster = attendanceBroadcaster;
+        this.eventMembershipRepository = eventMembershipRepository;
+        this.versionRegistry = versionRegistry;
     }
 
-    public List<AttendanceListData> findUserAttendanceLists() {
+    public CursorPage<AttendanceListData> findUserAttendanceLists(String cursor, Integer limit) throws InvalidInputException {
         String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-//        UserData userData = userService.getUser(email);
-        return attendanceListRepository.findListsByUserEmail(email);
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        Long after = keysetPagination.after(cursor);
+        List<AttendanceListData> lists = presenceService.isLazyMaterialization()
+                ? attendanceListRepository.findListsByMemberEmail(email, after, rows)
+                : attendanceListRepository.findListsByUserEmail(email, after, rows);
+        return keysetPagination.page(lists, rows, AttendanceListData::getId);
     }
 
+    @Transactional
     public void createAttendanceList(AttendanceListData attData) {
-        if(attData.getEndTime().isBefore(attData.getStartTime()))
-            throw new WrongTimeFrameException();
-        Event event = eventRepository.findById(attData.getEventId()).orElseThrow(EventNotFoundException::new);
-        if(!userRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString()).get().getId().
-                equals(event.getAdministratorId()) &&
-                !userRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString()).get().getRole().equals("ROLE_ADMIN"))
-            throw new PermissionDeniedException();
-        AttendanceList attendanceList = new AttendanceList();
-        attendanceList.setName(attData.getName());
-        attendanceList.setStartTime(attData.getStartTime());
-        attendanceList.setEndTime(attData.getEndTime());
-        attendanceList.setEvent(event);
-        attendanceListRepository.save(attendanceList);
-        for (User user : event.getUsers()) {
-            presenceService.createPresence(user.getId(), attendanceList.getId());
+        createAttendanceLists(Collections.singletonList(attData));
+    }
+
+    @Transactional
+    public List<AttendanceListCreationResult> createAttendanceLists(Collection<AttendanceListData> attendanceRequest) {
+        for (AttendanceListData attData : attendanceRequest) {
+            if (attData.getEventId() == null || attData.getStartTime() == null || attData.getEndTime() == null)
+                throw new InvalidInputException();
+            if (attData.getEndTime().isBefore(attData.getStartTime()))
+                throw new WrongTimeFrameException();
         }
+        AuthenticatedUser user = AuthenticatedUser.current();
+        Map<Long, List<AttendanceListData>> listsByEvent = attendanceRequest.stream()
+                .collect(Collectors.groupingBy(AttendanceListData::getEventId, LinkedHashMap::new, Collectors.toList()));
+        List<AttendanceListCreationResult> results = new ArrayList<>();
+        for (Map.Entry<Long, List<AttendanceListData>> eventLists : listsByEvent.entrySet()) {
+            Event event = eventRepository.findById(eventLists.getKey()).orElseThrow(EventNotFoundException::new);
+            if (!accessEvaluator.canAdministerEvent(user, event.getId()))
+                throw new PermissionDeniedException();
+            for (AttendanceListData attData : eventLists.getValue()) {
+                AttendanceList attendanceList = new AttendanceList();
+                attendanceList.setName(attData.getName());
+                attendanceList.setStartTime(attData.getStartTime());
+                attendanceList.setEndTime(attData.getEndTime());
+                attendanceList.setEvent(event);
+                attendanceListRepository.save(attendanceList);
+                int presencesCreated = presenceService.createPresences(attendanceList.getId(), event.getId());
+                attendanceStatisticsService.listCreated(attendanceList.getId(), event.getId());
+                results.add(new AttendanceListCreationResult(attendanceList.getId(), attendanceList.getName(),
+                        event.getId(), presencesCreated));
+            }
+            tagResolutionCache.invalidateRoom(event.getRoom().getId());
+            versionRegistry.bump(VersionRegistry.EVENT, event.getId());
+            versionRegistry.bump(VersionRegistry.USER, eventMembershipRepository.findMemberIds(event.getId()));
+        }
+        return results;
     }
 
 
-    public List<AttendanceList> getAttendanceList(Long eventId) {
-        List<AttendanceList> attendanceList = attendanceListRepository.findByEventId(eventId);
-        return attendanceList;
+    /**
+     * Run before the event's ETag is compared, so a 304 never answers a caller who may not read the lists.
+     */
+    public void checkEventListsAccess(Long eventId) throws EventNotFoundException, PermissionDeniedException {
+        if (!accessEvaluator.canManageEvent(AuthenticatedUser.current(), eventId, () -> eventRepository.findById(eventId)
+                .orElseThrow(EventNotFoundException::new).getRoom().getCorporation().getId()))
+            throw new PermissionDeniedException();
     }
 
-    public List<AttendanceListEventData> getAttendanceListEvent(Long eventId) throws EventNotFoundException, ObjectNotFoundException {
+    public List<AttendanceListEventData> getAttendanceListEvent(Long eventId)
+            throws EventNotFoundException, ObjectNotFoundException, PermissionDeniedException {
         Event event = eventRepository.findById(eventId).orElseThrow(EventNotFoundException::new);
+        if (!accessEvaluator.canManageEvent(AuthenticatedUser.current(), eventId, () -> event.getRoom().getCorporation().getId()))
+            throw new PermissionDeniedException();
         List<AttendanceList> listOfAttendanceList = attendanceListRepository.findByEventId(eventId);
         if(listOfAttendanceList.isEmpty()){
             throw new ObjectNotFoundException();
@@ -83,15 +140,36 @@ public class AttendanceListService {
         return attendanceListEventData;
     }
 
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<UserData> getPresentUsers(Long attendanceListId) {
         return attendanceListRepository.findPresentUsers(attendanceListId);
 
     }
 
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<UserData> getAbsentUsers(Long attendanceListId) {
+        if (presenceService.isLazyMaterialization())
+            return attendanceListRepository.findAbsentMembers(attendanceListId);
         return attendanceListRepository.findAbsentUsers(attendanceListId);
 
     }
+
+    /**
+     * Opens a live feed of the list's check-ins: a snapshot of the present users followed by one event per check-in.
+     */
+    public SseEmitter subscribeToPresences(Long attendanceListId)
+            throws AttendanceListNotFoundException, PermissionDeniedException, TooManySubscribersException {
+        AttendanceList attendanceList = attendanceListRepository.findById(attendanceListId);
+        if (attendanceList == null)
+            throw new AttendanceListNotFoundException();
+        Event event = attendanceList.getEvent();
+        if (!accessEvaluator.canManageEvent(AuthenticatedUser.current(), event.getId(), () -> event.getRoom().getCorporation().getId()))
+            throw new PermissionDeniedException();
+        return attendanceBroadcaster.subscribe(attendanceListId, () -> attendanceListRepository.findLivePresences(attendanceListId));
+    }
+
     public AttendanceList getAttendanceListById(Long Id) throws EmailExistException {
         return attendanceListRepository.findById(Id);
     }
@@ -0,0 +1,160 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.exception.*;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.dao.CursorPage;
+import com.ustudent.resquod.model.dao.ListAttendanceStatistics;
+import com.ustudent.resquod.model.dao.PendingCheckIn;
+import com.ustudent.resquod.model.dao.StatisticsReconciliation;
+import com.ustudent.resquod.model.dao.UserAttendanceStatistics;
+import com.ustudent.resquod.repository.AttendanceListStatisticsRepository;
+import com.ustudent.resquod.repository.AttendanceStatisticsBatchRepository;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.repository.UserEventStatisticsRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Attendance rates per (user, event) and per attendance list, served from summary rows that are
+ * updated together with the event join, the list creation and the check-in they count.
+ * A check-in is counted right after its presence row is written, and a join is added to the list totals
+ * right after it commits, so a crash in between or a reconciliation running at the same moment can leave
+ * a row off by one until the next reconciliation.
+ */
+@Service
+public class AttendanceStatisticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceStatisticsService.class);
+
+    private final AttendanceStatisticsBatchRepository statisticsBatchRepository;
+    private final UserEventStatisticsRepository userEventStatisticsRepository;
+    private final AttendanceListStatisticsRepository attendanceListStatisticsRepository;
+    private final EventRepository eventRepository;
+    private final AccessEvaluator accessEvaluator;
+    private final KeysetPagination keysetPagination;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate separateTransaction;
+
+    @Autowired
+    public AttendanceStatisticsService(AttendanceStatisticsBatchRepository statisticsBatchRepository,
+                                       UserEventStatisticsRepository userEventStatisticsRepository,
+                                       AttendanceListStatisticsRepository attendanceListStatisticsRepository,
+                                       EventRepository eventRepository,
+                                       AccessEvaluator accessEvaluator,
+                                       KeysetPagination keysetPagination,
+                                       PlatformTransactionManager transactionManager) {
+        this.statisticsBatchRepository = statisticsBatchRepository;
+        this.userEventStatisticsRepository = userEventStatisticsRepository;
+        this.attendanceListStatisticsRepository = attendanceListStatisticsRepository;
+        this.eventRepository = eventRepository;
+        this.accessEvaluator = accessEvaluator;
+        this.keysetPagination = keysetPagination;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The member's own counters are written with the join. The list totals, which every join to the event updates,
+     * are incremented in a transaction of their own after the join commits, so concurrent joins only hold those
+     * rows for one statement instead of queueing on them until each join's transaction ends.
+     */
+    public void memberJoined(Long eventId, Long userId) {
+        statisticsBatchRepository.insertMemberCounters(eventId, userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            countListMember(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                countListMember(eventId);
+            }
+        });
+    }
+
+    private void countListMember(Long eventId) {
+        try {
+            separateTransaction.execute(status -> {
+                statisticsBatchRepository.incrementListTotals(eventId);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.error("Could not count a new member of event {} in its list totals, the next reconciliation will", eventId, e);
+        }
+    }
+
+    public void listCreated(Long attendanceListId, Long eventId) {
+        statisticsBatchRepository.listCreated(attendanceListId, eventId);
+    }
+
+    public void checkedIn(Long userId, Long eventId, Long attendanceListId) {
+        checkedIn(Collections.singletonList(new PendingCheckIn(null, userId, eventId, attendanceListId, null)));
+    }
+
+    public void checkedIn(List<PendingCheckIn> checkIns) {
+        statisticsBatchRepository.checkedIn(checkIns);
+    }
+
+    public UserAttendanceStatistics getUserStatistics(Long eventId) throws ObjectNotFoundException {
+        return userEventStatisticsRepository.findStatistics(eventId, AuthenticatedUser.current().getId())
+                .orElseThrow(ObjectNotFoundException::new);
+    }
+
+    public CursorPage<UserAttendanceStatistics> getEventStatistics(Long eventId, String cursor, Integer limit)
+            throws EventNotFoundException, PermissionDeniedException, InvalidInputException {
+        Event event = eventRepository.findById(eventId).orElseThrow(EventNotFoundException::new);
+        if (!accessEvaluator.canManageEvent(AuthenticatedUser.current(), eventId, () -> event.getRoom().getCorporation().getId()))
+            throw new PermissionDeniedException();
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        List<UserAttendanceStatistics> statistics = userEventStatisticsRepository.findEventStatistics(eventId,
+                keysetPagination.after(cursor), rows);
+        return keysetPagination.page(statistics, rows, UserAttendanceStatistics::getUserId);
+    }
+
+    public ListAttendanceStatistics getListStatistics(Long attendanceListId)
+            throws AttendanceListNotFoundException, PermissionDeniedException {
+        ListAttendanceStatistics statistics = attendanceListStatisticsRepository.findStatistics(attendanceListId)
+                .orElseThrow(AttendanceListNotFoundException::new);
+        Long eventId = statistics.getEventId();
+        if (!accessEvaluator.canManageEvent(AuthenticatedUser.current(), eventId, () -> eventRepository.findById(eventId)
+                .orElseThrow(EventNotFoundException::new).getRoom().getCorporation().getId()))
+            throw new PermissionDeniedException();
+        return statistics;
+    }
+
+    /**
+     * Rebuilds the counters from the presences table, one transaction per event, and reports the rows that drifted.
+     */
+    @Scheduled(cron = "${resquod.attendance-stats.reconcile-cron:0 30 3 * * *}")
+    public synchronized StatisticsReconciliation reconcile() {
+        long start = System.currentTimeMillis();
+        List<Long> eventIds = statisticsBatchRepository.findEventIds();
+        int drifted = 0;
+        for (Long eventId : eventIds) {
+            Integer eventDrift = transactionTemplate.execute(status -> statisticsBatchRepository.reconcileEvent(eventId));
+            if (eventDrift != null && eventDrift > 0) {
+                log.warn("Rewrote {} drifted attendance statistics rows of event {}", eventDrift, eventId);
+                drifted += eventDrift;
+            }
+        }
+        long duration = System.currentTimeMillis() - start;
+        log.info("Reconciled attendance statistics of {} events in {} ms, {} rows drifted", eventIds.size(), duration, drifted);
+        return new StatisticsReconciliation(eventIds.size(), drifted, duration);
+    }
+}
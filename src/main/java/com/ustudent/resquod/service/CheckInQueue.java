@@ -0,0 +1,164 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.exception.CheckInQueueFullException;
+import com.ustudent.resquod.model.dao.PendingCheckIn;
+import com.ustudent.resquod.repository.PresenceBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Absorbs check-in bursts: taps are answered as soon as they are queued and a scheduled
+ * flusher writes the queued presences in JDBC batches. A presence is queued at most once
+ * until it is flushed, so repeated taps keep the date of the first one.
+ * A batch that could not be written because the database was unavailable is kept aside and retried first
+ * on the next flush, up to max-attempts times. A batch the database rejected, or one that ran out of attempts,
+ * is split until the rejected check-ins are isolated, those are logged and dropped so the queue keeps draining.
+ */
+@Component
+public class CheckInQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckInQueue.class);
+
+    private final PresenceBatchRepository presenceBatchRepository;
+    private final AttendanceStatisticsService attendanceStatisticsService;
+    private final AttendanceBroadcaster attendanceBroadcaster;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final LinkedBlockingDeque<PendingCheckIn> queue;
+    private final ConcurrentHashMap<Long, LocalDateTime> pendingDates = new ConcurrentHashMap<>();
+    private List<PendingCheckIn> failedBatch = new ArrayList<>();
+    private int failedAttempts;
+
+    @Autowired
+    public CheckInQueue(PresenceBatchRepository presenceBatchRepository,
+                        AttendanceStatisticsService attendanceStatisticsService,
+                        AttendanceBroadcaster attendanceBroadcaster,
+                        @Value("${resquod.checkin.async.enabled:false}") boolean enabled,
+                        @Value("${resquod.checkin.async.capacity:10000}") int capacity,
+                        @Value("${resquod.checkin.async.batch-size:500}") int batchSize,
+                        @Value("${resquod.checkin.async.max-attempts:5}") int maxAttempts) {
+        this.presenceBatchRepository = presenceBatchRepository;
+        this.attendanceStatisticsService = attendanceStatisticsService;
+        this.attendanceBroadcaster = attendanceBroadcaster;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.queue = new LinkedBlockingDeque<>(capacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the check-in. Returns the date of the check-in already pending for the presence,
+     * or null when this one was queued.
+     */
+    public LocalDateTime enqueue(PendingCheckIn checkIn) throws CheckInQueueFullException {
+        LocalDateTime pendingDate = pendingDates.putIfAbsent(checkIn.getPresenceId(), checkIn.getDate());
+        if (pendingDate != null)
+            return pendingDate;
+        if (!queue.offerLast(checkIn)) {
+            pendingDates.remove(checkIn.getPresenceId());
+            throw new CheckInQueueFullException();
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${resquod.checkin.async.flush-interval-ms:200}")
+    public synchronized void flush() {
+        for (List<PendingCheckIn> batch = nextBatch(); !batch.isEmpty(); batch = nextBatch()) {
+            if (!write(batch, failedAttempts >= maxAttempts))
+                return;
+            failedAttempts = 0;
+        }
+    }
+
+    /**
+     * Writes the batch, halving it when the database rejects it until the rejected check-ins are isolated.
+     * Returns false when the database is unavailable, the check-ins not written yet are then kept for the next flush.
+     */
+    private boolean write(List<PendingCheckIn> batch, boolean lastAttempt) {
+        List<PendingCheckIn> stored;
+        try {
+            stored = presenceBatchRepository.markPresent(batch);
+        } catch (DataAccessException e) {
+            if (isTransient(e) && !lastAttempt) {
+                failedAttempts++;
+                log.error("Could not flush {} check-ins, retrying them on the next flush, attempt {} of {}",
+                        batch.size(), failedAttempts, maxAttempts, e);
+                failedBatch.addAll(batch);
+                return false;
+            }
+            if (batch.size() == 1) {
+                PendingCheckIn checkIn = batch.get(0);
+                pendingDates.remove(checkIn.getPresenceId());
+                log.error("Dropped the check-in of user {} on attendance list {} at {}, presence id {}",
+                        checkIn.getUserId(), checkIn.getAttendanceListId(), checkIn.getDate(), checkIn.getPresenceId(), e);
+                return true;
+            }
+            List<PendingCheckIn> first = batch.subList(0, batch.size() / 2);
+            List<PendingCheckIn> second = batch.subList(batch.size() / 2, batch.size());
+            if (!write(first, lastAttempt)) {
+                failedBatch.addAll(second);
+                return false;
+            }
+            return write(second, lastAttempt);
+        }
+        for (PendingCheckIn checkIn : batch)
+            pendingDates.remove(checkIn.getPresenceId());
+        try {
+            attendanceStatisticsService.checkedIn(stored);
+        } catch (DataAccessException e) {
+            log.error("Could not count {} flushed check-ins, the next reconciliation will", stored.size(), e);
+        }
+        attendanceBroadcaster.checkedIn(stored);
+        return true;
+    }
+
+    /**
+     * Failures of the connection or of the transaction, rather than of the rows, are worth retrying unchanged.
+     */
+    private static boolean isTransient(DataAccessException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    /**
+     * Holding the failed batch outside the bounded queue means a retry never competes with new taps for capacity.
+     */
+    private List<PendingCheckIn> nextBatch() {
+        if (!failedBatch.isEmpty()) {
+            List<PendingCheckIn> batch = failedBatch;
+            failedBatch = new ArrayList<>();
+            return batch;
+        }
+        List<PendingCheckIn> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        return batch;
+    }
+
+    @PreDestroy
+    public synchronized void drain() {
+        flush();
+        int lost = failedBatch.size() + queue.size();
+        if (lost > 0)
+            log.warn("{} check-ins were not flushed before shutdown, presence ids {}", lost, pendingDates.keySet());
+    }
+}
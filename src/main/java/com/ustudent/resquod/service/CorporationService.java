@@ -5,11 +5,12 @@ import com.ustudent.resquod.exception.InvalidInputException;
 import com.ustudent.resquod.model.Corporation;
 import com.ustudent.resquod.model.User;
 import com.ustudent.resquod.model.dao.CorpoData;
+import com.ustudent.resquod.model.dao.CursorPage;
 import com.ustudent.resquod.repository.CorporationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -17,10 +18,12 @@ import java.util.Set;
 public class CorporationService {
 
     private final CorporationRepository corporationRepository;
+    private final KeysetPagination keysetPagination;
 
     @Autowired
-    public CorporationService(CorporationRepository corporationRepository) {
+    public CorporationService(CorporationRepository corporationRepository, KeysetPagination keysetPagination) {
         this.corporationRepository=corporationRepository;
+        this.keysetPagination = keysetPagination;
     }
 
     public Corporation getCorpoById(Long corporationId) {
@@ -33,12 +36,9 @@ public class CorporationService {
         corporationRepository.save(new Corporation(inputData.getName()));
     }
 
-    public List<CorpoData> showEveryCorpo() {
-        List<Corporation> events = corporationRepository.findAll();
-        List<CorpoData> allEvents = new ArrayList<>();
-        for (Corporation e: events){
-            allEvents.add(new CorpoData(e.getId(),e.getName()));
-        }
-        return allEvents;
+    public CursorPage<CorpoData> showEveryCorpo(String cursor, Integer limit) throws InvalidInputException {
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        List<CorpoData> corporations = corporationRepository.findCorpoData(keysetPagination.after(cursor), rows);
+        return keysetPagination.page(corporations, rows, CorpoData::getId);
     }
 }
\ No newline at end of file
@@ -1,14 +1,19 @@
 package com.ustudent.resquod.service;
 
+import com.ustudent.resquod.configuration.ReadReplica;
 import com.ustudent.resquod.exception.*;
 import com.ustudent.resquod.model.*;
 import com.ustudent.resquod.model.dao.*;
+import com.ustudent.resquod.repository.EventMembershipRepository;
 import com.ustudent.resquod.repository.EventRepository;
 import com.ustudent.resquod.repository.UserRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
 import com.ustudent.resquod.validator.EventValidator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
@@ -17,50 +22,59 @@ public class EventService {
 
     private final EventValidator eventValidator;
     private final EventRepository eventRepository;
+    private final EventMembershipRepository eventMembershipRepository;
     private final RoomService roomService;
-    private final UserService userService;
     private final CorporationService corporationService;
-    private final AttendanceListService attendanceListService;
     private final PresenceService presenceService;
+    private final AttendanceStatisticsService attendanceStatisticsService;
+    private final VersionRegistry versionRegistry;
     private final UserRepository userRepository;
+    private final TagResolutionCache tagResolutionCache;
+    private final KeysetPagination keysetPagination;
+    private final AccessEvaluator accessEvaluator;
 
     @Autowired
     public EventService(EventValidator eventValidator,
                         EventRepository eventRepository,
+                        EventMembershipRepository eventMembershipRepository,
                         RoomService roomService,
-                        UserService userService,
                         CorporationService corporationService,
-                        AttendanceListService attendanceListService,
                         PresenceService presenceService,
-                        UserRepository userRepository) {
+                        AttendanceStatisticsService attendanceStatisticsService,
+                        VersionRegistry versionRegistry,
+                        UserRepository userRepository,
+                        TagResolutionCache tagResolutionCache,
+                        KeysetPagination keysetPagination,
+                        AccessEvaluator accessEvaluator) {
         this.eventValidator = eventValidator;
         this.eventRepository = eventRepository;
+        this.eventMembershipRepository = eventMembershipRepository;
         this.roomService = roomService;
-        this.userService = userService;
         this.corporationService = corporationService;
-        this.attendanceListService = attendanceListService;
         this.presenceService = presenceService;
+        this.attendanceStatisticsService = attendanceStatisticsService;
+        this.versionRegistry = versionRegistry;
         this.userRepository = userRepository;
+        this.tagResolutionCache = tagResolutionCache;
+        this.keysetPagination = keysetPagination;
+        this.accessEvaluator = accessEvaluator;
     }
 
     public void addNewEvent(NewEventData newEvent) throws EventAlreadyExistsException, PermissionDeniedException {
 
-        User admin = userService.getLoggedUser();
-        Corporation corporation = roomService.getRoomById(newEvent.getRoomId()).getCorporation();
-
-        if (!(admin.getRole().equals("ROLE_ADMIN") ||
-                (admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(corporation))))
-            throw new PermissionDeniedException();
+        AuthenticatedUser admin = AuthenticatedUser.current();
+        Room room = roomService.getRoomById(newEvent.getRoomId());
+        accessEvaluator.checkCorporation(admin, room.getCorporation().getId());
 
         if (!checkIfEventExists(newEvent)) {
             eventValidator.validateEvent(newEvent);
             Event event = new Event();
             event.setAdministratorId(admin.getId());
-            Room room = roomService.getRoomById(newEvent.getRoomId());
             event.setName(newEvent.getName());
             event.setPassword(newEvent.getPassword());
             event.setRoom(room);
             eventRepository.save(event);
+            accessEvaluator.membershipChanged(admin);
         } else throw new EventAlreadyExistsException();
     }
 
@@ -69,51 +83,26 @@ public class EventService {
     }
 
     public Set<EventDTO> findEventsWhereUserIsAdmin() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        User user = userService.getUserByEmail(email);
-        Set<Event> events = eventRepository.findByAdministratorId(user.getId());
-        return getEventDTO(events);
-    }
-
-    private Set<EventDTO> getEventDTO(Set<Event> events) {
-        Set<EventDTO> eventsU = new HashSet<>();
-        for (Event e : events) {
-            CorporationDTO corporation = new CorporationDTO(e.getRoom().getCorporation().getId(), e.getRoom().getCorporation().getName());
-            RoomDTO room = new RoomDTO(e.getRoom().getId(), e.getRoom().getName(), corporation);
-            eventsU.add(new EventDTO(e.getId(), e.getName(), e.getAdministratorId(), e.getPassword(), room));
-        }
-        return eventsU;
-    }
-
-    private List<EventDTO> getEventDTO(List<Event> events) {
-        List<EventDTO> eventsU = new LinkedList<>();
-        for (Event e : events) {
-            CorporationDTO corporation = new CorporationDTO(e.getRoom().getCorporation().getId(), e.getRoom().getCorporation().getName());
-            RoomDTO room = new RoomDTO(e.getRoom().getId(), e.getRoom().getName(), corporation);
-            eventsU.add(new EventDTO(e.getId(), e.getName(), e.getAdministratorId(), e.getPassword(), room));
-        }
-        return eventsU;
+        return eventRepository.findEventDTOsByAdministratorId(AuthenticatedUser.current().getId());
     }
 
     public Set<EventDTO> findUserEvents() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        User user = userService.getUserByEmail(email);
-        Set<Event> events = user.getEvents();
-        return getEventDTO(events);
+        return eventRepository.findEventDTOsByUserId(AuthenticatedUser.current().getId());
     }
 
-    public List<EventDTO> showEveryEvent() {
-        List<Event> events = eventRepository.findAll();
-        return getEventDTO(events);
+    @ReadReplica
+    @Transactional(readOnly = true)
+    public CursorPage<EventDTO> showEveryEvent(String cursor, Integer limit) throws InvalidInputException {
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        List<EventDTO> events = eventRepository.findAllEventDTOs(keysetPagination.after(cursor), rows);
+        return keysetPagination.page(events, rows, EventDTO::getId);
     }
 
     public void changeEventData(EventData inputData) throws InvalidInputException, ObjectNotFoundException {
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        User user = userService.getUserByEmail(email);
+        AuthenticatedUser user = AuthenticatedUser.current();
         Event event = eventRepository.findById(inputData.getId()).orElseThrow(ObjectNotFoundException::new);
         Room room = roomService.findById(inputData.getRoomId());
-        Corporation corpoId = event.getRoom().getCorporation();
-        if (!(user.getId().equals(event.getAdministratorId()) || (user.getRole().equals("ROLE_OWNER") && user.getCorporations().contains(corpoId)) || user.getRole().equals("ROLE_ADMIN")))
+        if (!accessEvaluator.canManageEvent(user, event.getId(), () -> event.getRoom().getCorporation().getId()))
             throw new InvalidAdminId();
         if (inputData.getName() == null || inputData.getName().length() < 2
                 || inputData.getRoomId() == null)
@@ -124,19 +113,19 @@ public class EventService {
         event.setPassword(inputData.getPassword());
         if (!(event.getRoom().getCorporation().getId().equals(room.getCorporation().getId())))
             throw new RoomDoesntBelongToYourCorpo();
+        Long previousRoomId = event.getRoom().getId();
         event.setRoom(room);
         eventRepository.save(event);
+        versionRegistry.bump(VersionRegistry.EVENT, event.getId());
+        versionRegistry.bump(VersionRegistry.USER, eventMembershipRepository.findMemberIds(event.getId()));
+        tagResolutionCache.invalidateRoom(previousRoomId);
+        tagResolutionCache.invalidateRoom(room.getId());
 
     }
 
     public List<EventData> findByCorpoId(Long corpoId) throws PermissionDeniedException {
 
-        User admin = userService.getLoggedUser();
-        Corporation corporation = corporationService.getCorpoById(corpoId);
-
-        if (!(admin.getRole().equals("ROLE_ADMIN") ||
-                (admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(corporation))))
-            throw new PermissionDeniedException();
+        accessEvaluator.checkCorporation(AuthenticatedUser.current(), corpoId);
 
         List<Event> events = eventRepository.findByCorpoId(corpoId);
         List<EventData> corpoEvents = new ArrayList<>();
@@ -147,36 +136,37 @@ public class EventService {
     }
 
 
+    /**
+     * Joins with one membership insert and one INSERT ... SELECT of the joiner's presences,
+     * neither the event's members nor its attendance lists are loaded.
+     */
+    @Transactional
     public void joinToEvent(String password) throws InvalidInputException, ObjectNotFoundException, UserBelongEventException {
         if (password == null) {
             throw new InvalidInputException();
         }
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        User user = userService.getUserByEmail(email);
-        Event event = eventRepository.findByPassword(password).orElseThrow(ObjectNotFoundException::new);
-        Set<User> users = event.getUsers();
-        if(users.contains(user)){
+        Long userId = AuthenticatedUser.current().getId();
+        Long eventId = eventRepository.findIdByPassword(password).orElseThrow(ObjectNotFoundException::new);
+        if (!eventMembershipRepository.addMember(eventId, userId)) {
             throw new UserBelongEventException();
         }
-        users.add(user);
-        event.setUsers(users);
-        eventRepository.save(event);
-        List<AttendanceList> listOfAttendanceList = attendanceListService.getAttendanceList(event.getId());
-        for (AttendanceList attendanceList : listOfAttendanceList) {
-            presenceService.createPresence(user.getId(), attendanceList.getId());
-        }
+        presenceService.createPresencesForNewMember(eventId, userId);
+        attendanceStatisticsService.memberJoined(eventId, userId);
+        versionRegistry.bump(VersionRegistry.USER, userId);
     }
 
-    public List<UserData> getEventUsers(Long eventId) throws EventNotFoundException, PermissionDeniedException, ObjectNotFoundException{
-        User user = userService.getLoggedUser();
+    @ReadReplica
+    @Transactional(readOnly = true)
+    public CursorPage<UserData> getEventUsers(Long eventId, String cursor, Integer limit) throws EventNotFoundException, PermissionDeniedException, ObjectNotFoundException{
         Event event = eventRepository.findById(eventId).orElseThrow(EventNotFoundException::new);
-        if(!(user.getId() == event.getAdministratorId() || user.getRole().equals("ROLE_ADMIN") || (user.getRole().equals("ROLE_OWNER") && user.getCorporations().contains(event.getRoom().getCorporation())))){
+        if(!accessEvaluator.canManageEvent(AuthenticatedUser.current(), eventId, () -> event.getRoom().getCorporation().getId())){
             throw new PermissionDeniedException();
         }
-        List<UserData> users = userRepository.findUserDataByEventId(eventId);
-        if(users.isEmpty()){
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        List<UserData> users = userRepository.findUserDataByEventId(eventId, keysetPagination.after(cursor), rows);
+        if(users.isEmpty() && cursor == null){
             throw new ObjectNotFoundException();
         }
-        return users;
+        return keysetPagination.page(users, rows, UserData::getId);
     }
 }
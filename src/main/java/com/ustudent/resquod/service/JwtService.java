@@ -1,42 +1,37 @@
 package com.ustudent.resquod.service;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.ustudent.resquod.exception.WrongTokenException;
+import com.ustudent.resquod.security.SigningKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.Date;
-import java.util.Random;
 
 @Service
 public class JwtService {
-    private final Algorithm algorithm;
-    private final JWTVerifier verifier;
+    private final SigningKeyRing keyRing;
 
-
-    public JwtService() {
-        byte[] array = new byte[7];
-        new Random().nextBytes(array);
-        String secret = new String(array, StandardCharsets.UTF_8);
-        algorithm = Algorithm.HMAC256(secret);
-        verifier = JWT.require(algorithm).build();
+    @Autowired
+    public JwtService(SigningKeyRing keyRing) {
+        this.keyRing = keyRing;
     }
 
     public String sign(String email, String role) {
         try {
+            SigningKeyRing.SigningKey key = keyRing.current();
             return JWT.create()
+                    .withKeyId(key.getId())
                     .withClaim("email", email)
                     .withClaim("role", role)
                     .withExpiresAt(Date.from(ZonedDateTime.now().plusDays(7).toInstant()))
-                    .sign(algorithm);
+                    .sign(key.getAlgorithm());
         } catch (JWTCreationException ex) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error with creating token!");
         }
@@ -45,7 +40,11 @@ public class JwtService {
 
     public DecodedJWT verify(String token) throws JWTVerificationException {
         try {
-            return verifier.verify(token);
+            DecodedJWT decodedJWT = JWT.decode(token);
+            if (decodedJWT.getKeyId() == null)
+                throw new WrongTokenException();
+            SigningKeyRing.SigningKey key = keyRing.find(decodedJWT.getKeyId()).orElseThrow(WrongTokenException::new);
+            return key.getVerifier().verify(decodedJWT);
         } catch (JWTVerificationException e) {
             throw new WrongTokenException();
         }
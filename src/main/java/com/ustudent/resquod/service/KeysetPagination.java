@@ -0,0 +1,85 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.exception.InvalidInputException;
+import com.ustudent.resquod.model.dao.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for the list endpoints. Rows are read in id order after the id
+ * carried by an opaque cursor, so a page costs the same however deep the client is.
+ * The next cursor goes back to the client in the X-Next-Cursor header.
+ * A request with neither cursor nor limit gets every row, as before pagination, so existing clients
+ * keep their complete lists; paging starts with the first limit or cursor the client sends.
+ */
+@Component
+public class KeysetPagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String CURSOR_PREFIX = "k1:";
+
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    @Autowired
+    public KeysetPagination(@Value("${resquod.pagination.default-page-size:100}") int defaultPageSize,
+                            @Value("${resquod.pagination.max-page-size:500}") int maxPageSize) {
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * One row more than the page size is requested to tell whether another page follows.
+     */
+    public Pageable rows(String cursor, Integer limit) throws InvalidInputException {
+        if (limit != null && limit < 1)
+            throw new InvalidInputException();
+        if (limit == null && (cursor == null || cursor.isEmpty()))
+            return Pageable.unpaged();
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    public Long after(String cursor) throws InvalidInputException {
+        if (cursor == null || cursor.isEmpty())
+            return 0L;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX))
+                throw new InvalidInputException();
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException();
+        }
+    }
+
+    public <T> CursorPage<T> page(List<T> rows, Pageable pageable, Function<T, Long> key) {
+        if (pageable.isUnpaged())
+            return new CursorPage<>(rows, null);
+        int pageSize = pageable.getPageSize() - 1;
+        if (rows.size() <= pageSize)
+            return new CursorPage<>(rows, null);
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        Long lastKey = key.apply(items.get(items.size() - 1));
+        String nextCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastKey).getBytes(StandardCharsets.UTF_8));
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    public static <T> List<T> respond(CursorPage<T> page, HttpServletResponse response) {
+        if (page.getNextCursor() != null)
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        return page.getItems();
+    }
+}
@@ -0,0 +1,167 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.exception.HashingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt on a small bounded pool instead of the request threads, so a login burst
+ * can use at most the pool's threads and the other endpoints keep their CPU.
+ * When the pool and its queue are full callers get a HashingOverloadedException right away.
+ * The cost is configured once per deployment, instances that disagree on it would keep rehashing each other's hashes.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    @Autowired
+    public PasswordHasher(@Value("${resquod.hashing.cost:12}") int cost,
+                          @Value("${resquod.hashing.target-millis:100}") long targetMillis,
+                          @Value("${resquod.hashing.threads:0}") int threads,
+                          @Value("${resquod.hashing.queue-capacity:100}") int queueCapacity,
+                          @Value("${resquod.hashing.timeout-ms:10000}") long timeoutMillis,
+                          MeterRegistry meterRegistry) {
+        if (cost > 0 && (cost < MIN_COST || cost > MAX_COST))
+            throw new IllegalArgumentException("resquod.hashing.cost must be between " + MIN_COST + " and " + MAX_COST);
+        this.cost = cost > 0 ? cost : calibrate(targetMillis);
+        if (cost <= 0)
+            log.warn("Calibrated BCrypt cost {} for this host only, set resquod.hashing.cost to it on every instance", this.cost);
+        this.encoder = new BCryptPasswordEncoder(this.cost);
+        this.timeoutMillis = timeoutMillis;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTimer = Timer.builder("resquod.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("resquod.password.hash").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("resquod.password.hash.rejected").register(meterRegistry);
+        Gauge.builder("resquod.password.hash.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        log.info("Hashing passwords with BCrypt cost {} on {} threads", this.cost, poolSize);
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public String encode(String rawPassword) throws HashingOverloadedException {
+        return await(() -> encodeTimer.recordCallable(() -> encoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) throws HashingOverloadedException {
+        return await(() -> matchesTimer.recordCallable(() -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * True when the hash was made with a lower cost than the one passwords are hashed with now.
+     * Stronger hashes are kept, lowering the cost does not rewrite every password on the next login.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return costOf(encodedPassword) < cost;
+    }
+
+    /**
+     * Hashes the password again in the background, the callback gets the new hash.
+     * Skipped when the pool is busy, the next login will try again.
+     */
+    public void rehash(String rawPassword, Consumer<String> callback) {
+        try {
+            executor.execute(() -> {
+                try {
+                    callback.accept(encodeTimer.record(() -> encoder.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    log.warn("Could not rehash password", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Skipping password rehash, hashing pool is busy");
+        }
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingOverloadedException();
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            rejected.increment();
+            result.cancel(true);
+            throw new HashingOverloadedException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HashingOverloadedException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$')
+            return -1;
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Picks the cost whose hash time is closest to the target, each extra round doubles the time.
+     * Only used when resquod.hashing.cost is 0, to find the cost to configure for a deployment.
+     */
+    private static int calibrate(long targetMillis) {
+        String salt = BCrypt.gensalt(MIN_COST);
+        BCrypt.hashpw("calibration", salt);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double measuredMillis = Math.max(best / 1_000_000.0, 1.0);
+        int extraRounds = (int) Math.round(Math.log(targetMillis / measuredMillis) / Math.log(2));
+        return Math.max(MIN_COST, Math.min(MAX_COST, MIN_COST + extraRounds));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
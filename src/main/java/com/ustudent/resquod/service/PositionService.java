@@ -5,17 +5,17 @@ import com.ustudent.resquod.model.*;
 import com.ustudent.resquod.model.dao.EventAndAttendanceListData;
 import com.ustudent.resquod.model.dao.NewPositionData;
 import com.ustudent.resquod.model.dao.PositionData;
-import com.ustudent.resquod.model.dao.UserData;
+import com.ustudent.resquod.model.dao.TagCacheStatistics;
 import com.ustudent.resquod.repository.PositionRepository;
 import com.ustudent.resquod.repository.RoomRepository;
 import com.ustudent.resquod.repository.UserRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
 import com.ustudent.resquod.validator.PositionValidator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.LinkedList;
 import java.util.List;
 
 @Service
@@ -29,11 +29,15 @@ public class PositionService {
     private final UserRepository userRepository;
     private final PresenceService presenceService;
     private final CorporationService corporationService;
+    private final TagResolutionCache tagResolutionCache;
+    private final AccessEvaluator accessEvaluator;
+    private final VersionRegistry versionRegistry;
 
     @Autowired
     PositionService(PositionRepository positionRepository, PositionValidator positionValidator,
                     RoomRepository roomRepository, UserRepository userRepository, RoomService roomService,
-                    UserService userService, PresenceService presenceService, CorporationService corporationService) {
+                    UserService userService, PresenceService presenceService, CorporationService corporationService,
+                    TagResolutionCache tagResolutionCache, AccessEvaluator accessEvaluator, VersionRegistry versionRegistry) {
         this.positionRepository = positionRepository;
         this.roomRepository = roomRepository;
         this.positionValidator = positionValidator;
@@ -42,26 +46,24 @@ public class PositionService {
         this.userService = userService;
         this.presenceService = presenceService;
         this.corporationService = corporationService;
+        this.tagResolutionCache = tagResolutionCache;
+        this.accessEvaluator = accessEvaluator;
+        this.versionRegistry = versionRegistry;
     }
 
     public void addNewPosition(NewPositionData newPosition) throws PositionAlreadyExistsException, PermissionDeniedException {
 
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        User admin = userService.getUserByEmail(email);
-        Corporation corporation = roomService.getRoomById(newPosition.getRoomId()).getCorporation();
-
-        if (!(admin.getRole().equals("ROLE_ADMIN") ||
-                (admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(corporation))))
-            throw new PermissionDeniedException();
+        Room room = roomService.getRoomById(newPosition.getRoomId());
+        accessEvaluator.checkCorporation(AuthenticatedUser.current(), room.getCorporation().getId());
 
         if (!checkIfPositionExists(newPosition)) {
             if (positionValidator.validatePosition(newPosition)) {
-                Room room = roomService.getRoomById(newPosition.getRoomId());
                 Position position = new Position();
                 position.setNumberOfPosition(newPosition.getNumberOfPosition());
                 position.setRoom(room);
                 position.setTagId(null);
                 positionRepository.save(position);
+                versionRegistry.bump(VersionRegistry.CORPORATION, room.getCorporation().getId());
             }
         } else throw new PositionAlreadyExistsException();
     }
@@ -71,88 +73,68 @@ public class PositionService {
     }
 
     public void updatePosition(PositionData positionInput) throws EmailExistException, PositionNotFoundException, RoomNotFoundException, InvalidInputException {
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        UserData userData = userRepository.findUserData(email).orElseThrow(EmailExistException::new);
-        Position position = positionRepository.findByIdAndEmail(positionInput.getId(), userData.getEmail()).orElseThrow(PositionNotFoundException::new);
+        String email = AuthenticatedUser.current().getEmail();
+        Position position = positionRepository.findByIdAndEmail(positionInput.getId(), email).orElseThrow(PositionNotFoundException::new);
         if (positionInput.getTagId() == null || positionInput.getTagId().length() < 1 || positionInput.getNumberOfPosition() == null)
             throw new InvalidInputException();
         position.setTagId(positionInput.getTagId());
         position.setNumberOfPosition(positionInput.getNumberOfPosition());
+        Long previousCorporationId = position.getRoom().getCorporation().getId();
         Room room = roomRepository.findByRoomIdAndOwnerEmail(positionInput.getRoomId(), email).orElseThrow(RoomNotFoundException::new);
         position.setRoom(room);
         positionRepository.save(position);
+        tagResolutionCache.invalidateTags();
+        versionRegistry.bump(VersionRegistry.CORPORATION, previousCorporationId);
+        versionRegistry.bump(VersionRegistry.CORPORATION, room.getCorporation().getId());
     }
 
     public EventAndAttendanceListData getPresenceAtPosition(String tagId) {
         if (tagId == null || tagId.isEmpty()) throw new InvalidInputException();
-        LocalDateTime date = LocalDateTime.now();
-        User user = userService.getLoggedUser();
-        Presence presence = presenceService.getPresence(tagId, date, user.getId());
-        EventAndAttendanceListData eventAndAttendanceListData = new EventAndAttendanceListData();
-        eventAndAttendanceListData.setPresenceAt(presence.getDate());
-        eventAndAttendanceListData.setAttendanceListId(presence.getAttendanceList().getId());
-        eventAndAttendanceListData.setAttendanceListName(presence.getAttendanceList().getName());
-        eventAndAttendanceListData.setStartTime(presence.getAttendanceList().getStartTime());
-        eventAndAttendanceListData.setEndTime(presence.getAttendanceList().getEndTime());
-        eventAndAttendanceListData.setEventId(presence.getAttendanceList().getEvent().getId());
-        eventAndAttendanceListData.setEventName(presence.getAttendanceList().getEvent().getName());
-        return eventAndAttendanceListData;
+        long start = System.nanoTime();
+        try {
+            LocalDateTime date = LocalDateTime.now();
+            return presenceService.checkIn(tagId, date, AuthenticatedUser.current().getId());
+        } finally {
+            tagResolutionCache.recordTap(System.nanoTime() - start);
+        }
+    }
+
+    public TagCacheStatistics getTagCacheStatistics() {
+        return tagResolutionCache.getStatistics();
     }
 
     public void setTagId(PositionData positionData) {
 
         Position position = positionRepository.findById(positionData.getId()).orElseThrow(PositionNotFoundException::new);
         Room room = roomService.getRoomById(position.getRoom().getId());
-        User admin = userService.getLoggedUser();
-
-        if (!(admin.getRole().equals("ROLE_ADMIN") ||
-                (admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(room.getCorporation()))))
-            throw new PermissionDeniedException();
+        accessEvaluator.checkCorporation(AuthenticatedUser.current(), room.getCorporation().getId());
 
         if (!positionValidator.validateTagId(positionData.getTagId()))
             throw new InvalidInputException();
 
         position.setTagId(positionData.getTagId());
         positionRepository.save(position);
+        tagResolutionCache.invalidateTags();
+        versionRegistry.bump(VersionRegistry.CORPORATION, room.getCorporation().getId());
     }
 
     public List<PositionData> getNullTags(Long CorporationId) {
+        checkNullTagsAccess(CorporationId);
+        return positionRepository.findCorpoNullTags(CorporationId);
+    }
+
+    /**
+     * Run before the corporation's ETag is compared, so a 304 never answers a caller who may not read the positions.
+     */
+    public void checkNullTagsAccess(Long CorporationId) {
 
-        User admin = userService.getLoggedUser();
+        AuthenticatedUser admin = AuthenticatedUser.current();
 
-        if (admin.getRole().equals("ROLE_USER"))
+        if (admin.hasRole("ROLE_USER"))
             throw new PermissionDeniedException();
         if(CorporationId==null)
             throw new ObjectNotFoundException();
 
-        List<Position> positionsWithNulls;
-        List<PositionData> positionDataList = new LinkedList<>();
-
-        if ((admin.getRole().equals("ROLE_ADMIN"))) {
-            positionsWithNulls = positionRepository.findCorpoNullTags(CorporationId);
-            for (Position position : positionsWithNulls) {
-                PositionData positionData = new PositionData(position.getId(),
-                        position.getNumberOfPosition(),
-                        position.getTagId(),
-                        position.getRoom().getId(),
-                        position.getRoom().getName());
-                positionDataList.add(positionData);
-            }
-        } else {
-            Corporation corporation = corporationService.getCorpoById(CorporationId);
-            if (!(admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(corporation)))
-                throw new PermissionDeniedException();
-
-            positionsWithNulls = positionRepository.findCorpoNullTags(CorporationId);
-            for (Position position : positionsWithNulls) {
-                PositionData positionData = new PositionData(position.getId(),
-                        position.getNumberOfPosition(),
-                        position.getTagId(),
-                        position.getRoom().getId(),
-                        position.getRoom().getName());
-                positionDataList.add(positionData);
-            }
-        }
-        return positionDataList;
+        accessEvaluator.checkCorporation(admin, CorporationId);
     }
 }
\ No newline at end of file
@@ -1,50 +1,188 @@
 package com.ustudent.resquod.service;
 
+import com.ustudent.resquod.configuration.ReadReplica;
 import com.ustudent.resquod.exception.ObjectNotFoundException;
 import com.ustudent.resquod.model.Presence;
+import com.ustudent.resquod.exception.InvalidInputException;
+import com.ustudent.resquod.model.dao.CursorPage;
+import com.ustudent.resquod.model.dao.EventAndAttendanceListData;
+import com.ustudent.resquod.model.dao.PendingCheckIn;
 import com.ustudent.resquod.model.dao.PresenceData;
+import com.ustudent.resquod.repository.EventRepository;
+import com.ustudent.resquod.repository.PresenceBatchRepository;
 import com.ustudent.resquod.repository.PresenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class PresenceService {
 
     private final PresenceRepository presenceRepository;
+    private final PresenceBatchRepository presenceBatchRepository;
+    private final EventRepository eventRepository;
+    private final TagResolutionCache tagResolutionCache;
+    private final CheckInQueue checkInQueue;
+    private final KeysetPagination keysetPagination;
+    private final AttendanceStatisticsService attendanceStatisticsService;
+    private final AttendanceBroadcaster attendanceBroadcaster;
+    private final Counter marked;
+    private final Counter alreadyMarked;
+    private final Counter noOpenList;
+    private final Counter unknownTag;
     private UserService userService;
     private AttendanceListService attendanceListService;
+    @Value("${resquod.presence.lazy-materialization:false}")
+    private boolean lazyMaterialization;
 
     @Lazy
     @Autowired
-    PresenceService(PresenceRepository presenceRepository, UserService userService, AttendanceListService attendanceListService) {
+    PresenceService(PresenceRepository presenceRepository, PresenceBatchRepository presenceBatchRepository,
+                    EventRepository eventRepository, TagResolutionCache tagResolutionCache, CheckInQueue checkInQueue,
+                    KeysetPagination keysetPagination, AttendanceStatisticsService attendanceStatisticsService,
+                    AttendanceBroadcaster attendanceBroadcaster, MeterRegistry meterRegistry,
+                    UserService userService, AttendanceListService attendanceListService) {
         this.presenceRepository = presenceRepository;
+        this.presenceBatchRepository = presenceBatchRepository;
+        this.eventRepository = eventRepository;
+        this.tagResolutionCache = tagResolutionCache;
+        this.checkInQueue = checkInQueue;
+        this.keysetPagination = keysetPagination;
+        this.attendanceStatisticsService = attendanceStatisticsService;
+        this.attendanceBroadcaster = attendanceBroadcaster;
         this.userService = userService;
         this.attendanceListService = attendanceListService;
+        this.marked = checkInCounter(meterRegistry, "marked");
+        this.alreadyMarked = checkInCounter(meterRegistry, "already_marked");
+        this.noOpenList = checkInCounter(meterRegistry, "no_open_list");
+        this.unknownTag = checkInCounter(meterRegistry, "unknown_tag");
     }
 
-    public List<PresenceData> findUserPresences(String email) {
-        return presenceRepository.findPresencesByUserEmail(email);
+    private static Counter checkInCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("resquod.checkin").tag("outcome", outcome).register(meterRegistry);
     }
 
-    public Presence getPresence(String tagId, LocalDateTime date, Long id) {
-        Presence presence = presenceRepository.findByDateAfter(id, tagId, date).orElseThrow(ObjectNotFoundException::new).get(0);
-        if (presence.getDate()==null){
-            presence.setDate(date);
-            presence.setPresence(true);
-            presenceRepository.save(presence);
+    /**
+     * In lazy materialization mode only check-ins are stored as presence rows,
+     * absences are derived from event membership when they are read.
+     */
+    public boolean isLazyMaterialization() {
+        return lazyMaterialization;
+    }
+
+    @ReadReplica
+    @Transactional(readOnly = true)
+    public CursorPage<PresenceData> findUserPresences(String email, String cursor, Integer limit) throws InvalidInputException {
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        Long after = keysetPagination.after(cursor);
+        if (!lazyMaterialization)
+            return keysetPagination.page(presenceRepository.findPresencesByUserEmail(email, after, rows),
+                    rows, PresenceData::getAttendanceListId);
+        List<PresenceData> presences = presenceRepository.findMemberPresencesByUserEmail(email, after, rows);
+        for (PresenceData presence : presences) {
+            if (presence.getPresence() == null)
+                presence.setPresence(false);
+        }
+        return keysetPagination.page(presences, rows, PresenceData::getAttendanceListId);
+    }
+
+    public EventAndAttendanceListData checkIn(String tagId, LocalDateTime date, Long userId) {
+        Optional<Long> room = tagResolutionCache.findRoomId(tagId);
+        if (!room.isPresent()) {
+            unknownTag.increment();
+            throw new ObjectNotFoundException();
+        }
+        Long roomId = room.get();
+        for (EventAndAttendanceListData openList : tagResolutionCache.findOpenLists(roomId, date)) {
+            Optional<LocalDateTime> presenceAt = markPresence(userId, openList, date);
+            if (presenceAt.isPresent()) {
+                EventAndAttendanceListData checkIn = new EventAndAttendanceListData(openList.getEventId(),
+                        openList.getEventName(),
+                        openList.getAttendanceListId(),
+                        openList.getAttendanceListName(),
+                        openList.getStartTime(),
+                        openList.getEndTime());
+                checkIn.setPresenceAt(presenceAt.get());
+                return checkIn;
+            }
+        }
+        noOpenList.increment();
+        throw new ObjectNotFoundException();
+    }
+
+    private Optional<LocalDateTime> markPresence(Long userId, EventAndAttendanceListData openList, LocalDateTime date) {
+        if (!checkInQueue.isEnabled() && markPresent(userId, openList.getAttendanceListId(), date)) {
+            checkedIn(userId, openList, date);
+            marked.increment();
+            return Optional.of(date);
         }
-        return presence;
+        Optional<Presence> presence = presenceRepository.findByUserIdAndAttendanceListId(userId, openList.getAttendanceListId());
+        if (presence.isPresent()) {
+            if (presence.get().getDate() == null && checkInQueue.isEnabled()) {
+                LocalDateTime pendingAt = checkInQueue.enqueue(new PendingCheckIn(presence.get().getId(), userId,
+                        openList.getEventId(), openList.getAttendanceListId(), date));
+                if (pendingAt != null) {
+                    alreadyMarked.increment();
+                    return Optional.of(pendingAt);
+                }
+                marked.increment();
+                return Optional.of(date);
+            }
+            if (presence.get().getDate() != null)
+                alreadyMarked.increment();
+            return Optional.ofNullable(presence.get().getDate());
+        }
+        if (!lazyMaterialization || !eventRepository.isMember(openList.getEventId(), userId))
+            return Optional.empty();
+        Presence newPresence = new Presence();
+        newPresence.setUser(userService.getUserById(userId));
+        newPresence.setAttendanceList(attendanceListService.getAttendanceListById(openList.getAttendanceListId()));
+        newPresence.setPresence(true);
+        newPresence.setDate(date);
+        try {
+            LocalDateTime presenceAt = presenceRepository.save(newPresence).getDate();
+            checkedIn(userId, openList, presenceAt);
+            marked.increment();
+            return Optional.of(presenceAt);
+        } catch (DataIntegrityViolationException e) {
+            alreadyMarked.increment();
+            return presenceRepository.findByUserIdAndAttendanceListId(userId, openList.getAttendanceListId())
+                    .map(Presence::getDate);
+        }
+    }
+
+    private void checkedIn(Long userId, EventAndAttendanceListData openList, LocalDateTime date) {
+        attendanceStatisticsService.checkedIn(userId, openList.getEventId(), openList.getAttendanceListId());
+        attendanceBroadcaster.checkedIn(userId, openList.getAttendanceListId(), date);
+    }
+
+    /**
+     * Marks the presence with a single conditional update.
+     * Returns true only for the call that stored the check-in, concurrent taps get false.
+     */
+    public boolean markPresent(Long userId, Long attendanceListId, LocalDateTime date) {
+        return presenceRepository.markPresent(userId, attendanceListId, date) == 1;
+    }
+
+    public int createPresencesForNewMember(Long eventId, Long userId) {
+        if (lazyMaterialization)
+            return 0;
+        return presenceBatchRepository.insertAbsentPresencesForNewMember(eventId, userId);
     }
 
-    public void createPresence(Long userId, Long attendanceListId){
-        Presence presence = new Presence();
-        presence.setUser(userService.getUserById(userId));
-        presence.setPresence(false);
-        presence.setAttendanceList(attendanceListService.getAttendanceListById(attendanceListId));
-        presenceRepository.save(presence);
+    public int createPresences(Long attendanceListId, Long eventId) {
+        if (lazyMaterialization)
+            return 0;
+        return presenceBatchRepository.insertAbsentPresencesForEventMembers(attendanceListId, eventId);
     }
 }
@@ -1,5 +1,6 @@
 package com.ustudent.resquod.service;
 
+import com.ustudent.resquod.configuration.ReadReplica;
 import com.ustudent.resquod.exception.PermissionDeniedException;
 import com.ustudent.resquod.exception.RoomAlreadyExistsException;
 import com.ustudent.resquod.exception.RoomNotFoundException;
@@ -7,20 +8,23 @@ import com.ustudent.resquod.exception.ObjectNotFoundException;
 import com.ustudent.resquod.model.Corporation;
 import com.ustudent.resquod.model.Position;
 import com.ustudent.resquod.model.Room;
-import com.ustudent.resquod.model.User;
-import com.ustudent.resquod.model.dao.CorporationDTO;
+import com.ustudent.resquod.model.dao.CursorPage;
 import com.ustudent.resquod.model.dao.NewRoomData;
 import com.ustudent.resquod.exception.InvalidAdminId;
 import com.ustudent.resquod.exception.InvalidInputException;
 import com.ustudent.resquod.model.dao.RoomDTO;
+import com.ustudent.resquod.repository.EventMembershipRepository;
+import com.ustudent.resquod.repository.EventRepository;
 import com.ustudent.resquod.repository.RoomRepository;
+import com.ustudent.resquod.security.AccessEvaluator;
+import com.ustudent.resquod.security.AuthenticatedUser;
 import com.ustudent.resquod.validator.RoomValidator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 @Service
 public class RoomService {
@@ -29,33 +33,48 @@ public class RoomService {
     private final CorporationService corporationService;
     private final UserService userService;
     private final RoomValidator roomValidator;
+    private final TagResolutionCache tagResolutionCache;
+    private final KeysetPagination keysetPagination;
+    private final AccessEvaluator accessEvaluator;
+    private final EventRepository eventRepository;
+    private final EventMembershipRepository eventMembershipRepository;
+    private final VersionRegistry versionRegistry;
 
     @Autowired
     RoomService(RoomRepository roomRepository,
                 RoomValidator roomValidator,
                 CorporationService corporationService,
-                UserService userService) {
+                UserService userService,
+                TagResolutionCache tagResolutionCache,
+                KeysetPagination keysetPagination,
+                AccessEvaluator accessEvaluator,
+                EventRepository eventRepository,
+                EventMembershipRepository eventMembershipRepository,
+                VersionRegistry versionRegistry) {
         this.roomRepository = roomRepository;
         this.roomValidator = roomValidator;
         this.corporationService = corporationService;
         this.userService = userService;
+        this.tagResolutionCache = tagResolutionCache;
+        this.keysetPagination = keysetPagination;
+        this.accessEvaluator = accessEvaluator;
+        this.eventRepository = eventRepository;
+        this.eventMembershipRepository = eventMembershipRepository;
+        this.versionRegistry = versionRegistry;
     }
 
     public void addNewRoom(NewRoomData newRoom) throws RoomAlreadyExistsException, PermissionDeniedException {
 
-        User admin = userService.getLoggedUser();
+        accessEvaluator.checkCorporation(AuthenticatedUser.current(), newRoom.getCorporationId());
         Corporation corporation = corporationService.getCorpoById(newRoom.getCorporationId());
 
-        if (!(admin.getRole().equals("ROLE_ADMIN") ||
-                (admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(corporation))))
-            throw new PermissionDeniedException();
-
         if(!checkIfRoomExists(newRoom)) {
             if(roomValidator.validateRoom(newRoom)) {
                 Room room = new Room();
                 room.setName(newRoom.getName());
                 room.setCorporation(corporation);
                 roomRepository.save(room);
+                versionRegistry.bump(VersionRegistry.CORPORATION, corporation.getId());
             }
         } else throw new RoomAlreadyExistsException();
     }
@@ -73,46 +92,47 @@ public class RoomService {
         if(roomToRemove.getId() == null)
             throw new InvalidInputException();
 
-        User admin = userService.getLoggedUser();
         Room room = roomRepository.findById(roomToRemove.getId()).orElseThrow(RoomNotFoundException::new);
-        Corporation corporation = corporationService.getCorpoById(room.getCorporation().getId());
-
-        if (!(admin.getRole().equals("ROLE_ADMIN") ||
-                (admin.getRole().equals("ROLE_OWNER") && admin.getCorporations().contains(corporation))))
-            throw new PermissionDeniedException();
+        accessEvaluator.checkCorporation(AuthenticatedUser.current(), room.getCorporation().getId());
 
         roomRepository.delete(room);
+        versionRegistry.bump(VersionRegistry.CORPORATION, room.getCorporation().getId());
+        tagResolutionCache.invalidateRoom(room.getId());
+        tagResolutionCache.invalidateTags();
     }
 
     public Room findById(Long id) throws ObjectNotFoundException {
         return roomRepository.findById(id).orElseThrow(ObjectNotFoundException::new);
     }
 
-    public Set<RoomDTO> findCorpoRooms(Long id) {
-        Set<Room> cRooms = roomRepository.findByCorporationId(id);
-        return getRoomDTO(cRooms);
+    @ReadReplica
+    @Transactional(readOnly = true)
+    public CursorPage<RoomDTO> findCorpoRooms(Long id, String cursor, Integer limit) throws InvalidInputException {
+        checkCorpoRoomsAccess(id);
+        Pageable rows = keysetPagination.rows(cursor, limit);
+        List<RoomDTO> rooms = roomRepository.findRoomDTOsByCorporationId(id, keysetPagination.after(cursor), rows);
+        return keysetPagination.page(rooms, rows, RoomDTO::getId);
     }
 
-    private Set<RoomDTO> getRoomDTO(Set<Room> cRooms) {
-        Set<RoomDTO> roomU = new HashSet<>();
-        for (Room r:cRooms) {
-            CorporationDTO corporation=new CorporationDTO(r.getCorporation().getId(),r.getCorporation().getName());
-            roomU.add(new RoomDTO(r.getId(),r.getName(),corporation));
-        }
-        return roomU;
+    /**
+     * Run before the corporation's ETag is compared, so a 304 never answers a caller who may not read the rooms.
+     */
+    public void checkCorpoRoomsAccess(Long corporationId) throws PermissionDeniedException {
+        if (!accessEvaluator.canViewCorporation(AuthenticatedUser.current(), corporationId))
+            throw new PermissionDeniedException();
     }
 
     public void editRoomData(RoomDTO inputData) throws InvalidInputException, ObjectNotFoundException {
-        String email = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        User user = userService.getUserByEmail(email);
         Room room = roomRepository.findById(inputData.getId()).orElseThrow(ObjectNotFoundException::new);
-        Corporation corpo = room.getCorporation();
-        if (user.getRole().equals("ROLE_ADMIN") || (user.getRole().equals("ROLE_OWNER") && user.getCorporations().contains(corpo)))
+        if (!accessEvaluator.canManageCorporation(AuthenticatedUser.current(), room.getCorporation().getId()))
             throw new InvalidAdminId();
         if (inputData.getName() == null || inputData.getName().length() < 2)
             throw new InvalidInputException();
         room.setName(inputData.getName());
         roomRepository.save(room);
+        versionRegistry.bump(VersionRegistry.CORPORATION, room.getCorporation().getId());
+        versionRegistry.bump(VersionRegistry.EVENT, eventRepository.findIdsByRoomId(room.getId()));
+        versionRegistry.bump(VersionRegistry.USER, eventMembershipRepository.findMemberIdsByRoomId(room.getId()));
     }
 
 }
@@ -0,0 +1,154 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.model.dao.EventAndAttendanceListData;
+import com.ustudent.resquod.model.dao.TagCacheStatistics;
+import com.ustudent.resquod.repository.AttendanceListRepository;
+import com.ustudent.resquod.repository.PositionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves an NFC tag to its room and the room to its not yet ended attendance lists,
+ * so a check-in does not have to join positions, rooms, events and lists on every tap.
+ * Entries expire after resquod.tag-cache.ttl-seconds and are dropped by the write paths
+ * that change tags, rooms or lists.
+ */
+@Component
+public class TagResolutionCache {
+
+    private static final long UNKNOWN_ROOM = -1L;
+
+    private final PositionRepository positionRepository;
+    private final AttendanceListRepository attendanceListRepository;
+    private final long ttlNanos;
+    private final int maxTags;
+
+    private final ConcurrentHashMap<String, CachedEntry<Long>> roomIdByTag = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CachedEntry<List<EventAndAttendanceListData>>> listsByRoom = new ConcurrentHashMap<>();
+    private final AtomicLong tagsVersion = new AtomicLong();
+    private final ConcurrentHashMap<Long, AtomicLong> roomVersions = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder taps = new LongAdder();
+    private final LongAdder tapNanos = new LongAdder();
+    private final LongAccumulator maxTapNanos = new LongAccumulator(Long::max, 0);
+
+    @Autowired
+    public TagResolutionCache(PositionRepository positionRepository,
+                              AttendanceListRepository attendanceListRepository,
+                              @Value("${resquod.tag-cache.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${resquod.tag-cache.max-tags:10000}") int maxTags) {
+        this.positionRepository = positionRepository;
+        this.attendanceListRepository = attendanceListRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxTags = maxTags;
+    }
+
+    public Optional<Long> findRoomId(String tagId) {
+        CachedEntry<Long> entry = roomIdByTag.get(tagId);
+        if (entry != null && !entry.isExpired()) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long version = tagsVersion.get();
+            entry = new CachedEntry<>(positionRepository.findRoomIdByTagId(tagId).orElse(UNKNOWN_ROOM), ttlNanos);
+            if (roomIdByTag.size() >= maxTags)
+                roomIdByTag.clear();
+            if (version == tagsVersion.get())
+                roomIdByTag.put(tagId, entry);
+        }
+        return entry.value == UNKNOWN_ROOM ? Optional.empty() : Optional.of(entry.value);
+    }
+
+    /**
+     * Returns the attendance lists of the room that are open at the given time, latest start first.
+     */
+    public List<EventAndAttendanceListData> findOpenLists(Long roomId, LocalDateTime date) {
+        CachedEntry<List<EventAndAttendanceListData>> entry = listsByRoom.get(roomId);
+        if (entry != null && !entry.isExpired()) {
+            hits.increment();
+        } else {
+            misses.increment();
+            AtomicLong roomVersion = roomVersions.computeIfAbsent(roomId, id -> new AtomicLong());
+            long version = roomVersion.get();
+            entry = new CachedEntry<>(attendanceListRepository.findNotEndedByRoomId(roomId, LocalDateTime.now()), ttlNanos);
+            if (version == roomVersion.get())
+                listsByRoom.put(roomId, entry);
+        }
+        List<EventAndAttendanceListData> openLists = new ArrayList<>();
+        for (EventAndAttendanceListData list : entry.value) {
+            if (!list.getStartTime().isAfter(date) && !list.getEndTime().isBefore(date))
+                openLists.add(list);
+        }
+        return openLists;
+    }
+
+    public void invalidateTags() {
+        runNowAndAfterCommit(() -> {
+            tagsVersion.incrementAndGet();
+            roomIdByTag.clear();
+        });
+    }
+
+    public void invalidateRoom(Long roomId) {
+        if (roomId == null)
+            return;
+        runNowAndAfterCommit(() -> {
+            roomVersions.computeIfAbsent(roomId, id -> new AtomicLong()).incrementAndGet();
+            listsByRoom.remove(roomId);
+        });
+    }
+
+    public void recordTap(long nanos) {
+        taps.increment();
+        tapNanos.add(nanos);
+        maxTapNanos.accumulate(nanos);
+    }
+
+    public TagCacheStatistics getStatistics() {
+        long tapCount = taps.sum();
+        long averageTapNanos = tapCount == 0 ? 0 : tapNanos.sum() / tapCount;
+        return new TagCacheStatistics(hits.sum(), misses.sum(), tapCount,
+                TimeUnit.NANOSECONDS.toMicros(averageTapNanos), TimeUnit.NANOSECONDS.toMicros(maxTapNanos.get()));
+    }
+
+    private void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private static final class CachedEntry<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private CachedEntry(T value, long ttlNanos) {
+            this.value = value;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
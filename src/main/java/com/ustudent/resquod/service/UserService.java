@@ -4,11 +4,11 @@ import com.ustudent.resquod.exception.*;
 import com.ustudent.resquod.model.User;
 import com.ustudent.resquod.model.dao.*;
 import com.ustudent.resquod.repository.UserRepository;
+import com.ustudent.resquod.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowire;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Configurable;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -17,14 +17,17 @@ public class UserService {
 
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
+    private final PrincipalCache principalCache;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher, JwtService jwtService,
+                       PrincipalCache principalCache) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtService = jwtService;
+        this.principalCache = principalCache;
     }
 
     public void validateLoginData(LoginUserData userInput) {
@@ -76,11 +79,11 @@ public class UserService {
     }
 
     private String hashPassword(String password) {
-        return passwordEncoder.encode(password);
+        return passwordHasher.encode(password);
     }
 
     public Boolean verifyPassword(String password, String hash) throws InvalidPasswordException {
-        if (!passwordEncoder.matches(password, hash)) throw new InvalidPasswordException();
+        if (!passwordHasher.matches(password, hash)) throw new InvalidPasswordException();
         return true;
     }
 
@@ -103,6 +106,7 @@ public class UserService {
         user.setSurname(userInput.getSurname());
         user.setEmail(userInput.getEmail());
         userRepository.save(user);
+        principalCache.invalidate(email);
     }
 
     public void changePassword(UserPassword userInput) throws InvalidPasswordException, PasswordMatchedException {
@@ -122,11 +126,12 @@ public class UserService {
 
     public TokenTransfer login(LoginUserData userInput) {
         this.validateLoginData(userInput);
-        LoginUserData loginUserData;
-        loginUserData = this.getUserDataIfExist(userInput.getEmail());
-        this.verifyPassword(userInput.getPassword(), loginUserData.getPassword());
-        String token = jwtService.sign(loginUserData.getEmail(), loginUserData.getRole());
-        UserData userData = userRepository.findUserData(loginUserData.getEmail()).orElseThrow(ObjectNotFoundException::new);
-        return new TokenTransfer(token, userData);
+        UserCredentials credentials = userRepository.findCredentials(userInput.getEmail()).orElseThrow(EmailExistException::new);
+        this.verifyPassword(userInput.getPassword(), credentials.getPassword());
+        if (passwordHasher.needsRehash(credentials.getPassword()))
+            passwordHasher.rehash(userInput.getPassword(),
+                    newPassword -> userRepository.replacePassword(credentials.getId(), credentials.getPassword(), newPassword));
+        String token = jwtService.sign(credentials.getEmail(), credentials.getRole());
+        return new TokenTransfer(token, credentials.toUserData());
     }
 }
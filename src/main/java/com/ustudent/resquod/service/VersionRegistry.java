@@ -0,0 +1,80 @@
+package com.ustudent.resquod.service;
+
+import com.ustudent.resquod.configuration.ReadReplica;
+import com.ustudent.resquod.repository.AggregateVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Version counters per user, event and corporation, bumped by the write paths and turned into ETags
+ * by the read endpoints, so a client that already has the current data gets a 304 after a single key lookup.
+ * The counters are kept in the database, a write handled by one instance changes the ETags every instance hands out.
+ */
+@Component
+public class VersionRegistry {
+
+    public static final String USER = "user";
+    public static final String EVENT = "event";
+    public static final String CORPORATION = "corporation";
+
+    private final AggregateVersionRepository aggregateVersionRepository;
+
+    @Autowired
+    public VersionRegistry(AggregateVersionRepository aggregateVersionRepository) {
+        this.aggregateVersionRepository = aggregateVersionRepository;
+    }
+
+    public void bump(String aggregate, Long id) {
+        bump(aggregate, Collections.singleton(id));
+    }
+
+    /**
+     * Runs in the surrounding transaction when there is one, so the new version commits together with the data.
+     */
+    public void bump(String aggregate, Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids)
+            keys.add(aggregate + id);
+        aggregateVersionRepository.increment(keys);
+    }
+
+    public String etag(String aggregate, Long id) {
+        String key = aggregate + id;
+        return "\"" + key + '-' + aggregateVersionRepository.find(key) + '"';
+    }
+
+    /**
+     * Compares the ETag and reads the body in one read-only transaction, on a replica when replicas are configured.
+     * The version and the data then come from the same snapshot, so a lagging replica answers with its own older
+     * version instead of tagging old data with the primary's newer one. Returns null when the client is up to date.
+     */
+    @ReadReplica
+    @Transactional(readOnly = true)
+    public <T> T readIfModified(WebRequest request, String aggregate, Long id, Supplier<T> body) {
+        if (notModified(request, etag(aggregate, id)))
+            return null;
+        return body.get();
+    }
+
+    /**
+     * Sets the ETag and answers 304 when it matches If-None-Match. The response is marked private and
+     * no-cache so clients keep it and revalidate, instead of the no-store Spring Security sends by default.
+     */
+    public static boolean notModified(WebRequest request, String etag) {
+        if (request instanceof ServletWebRequest && ((ServletWebRequest) request).getResponse() != null)
+            ((ServletWebRequest) request).getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return request.checkNotModified(etag);
+    }
+}
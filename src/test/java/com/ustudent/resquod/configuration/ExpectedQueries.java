@@ -0,0 +1,15 @@
+package com.ustudent.resquod.configuration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The exact number of statements the test method may run, checked by {@link QueryCountExtension}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExpectedQueries {
+    int value();
+}
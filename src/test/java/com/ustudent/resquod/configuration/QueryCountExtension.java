@@ -0,0 +1,27 @@
+package com.ustudent.resquod.configuration;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements run by the test method itself, after the @BeforeEach setup, and compares them
+ * with its {@link ExpectedQueries}. Requests sent through MockMvc run on the test thread and are counted too.
+ */
+public class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        int statements = QueryCounter.stop();
+        ExpectedQueries expected = context.getRequiredTestMethod().getAnnotation(ExpectedQueries.class);
+        if (expected != null && !context.getExecutionException().isPresent())
+            assertEquals(expected.value(), statements, "Statements run by " + context.getDisplayName());
+    }
+}
@@ -0,0 +1,128 @@
+package com.ustudent.resquod.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private SwitchableDataSource replicaConnection;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("primary").build();
+        replica = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("replica").build();
+        new JdbcTemplate(primary).execute("CREATE TABLE node (name VARCHAR(20))");
+        new JdbcTemplate(primary).update("INSERT INTO node VALUES ('primary')");
+        new JdbcTemplate(replica).execute("CREATE TABLE node (name VARCHAR(20))");
+        new JdbcTemplate(replica).update("INSERT INTO node VALUES ('replica')");
+        replicaConnection = new SwitchableDataSource(replica);
+        routingDataSource = new ReplicaRoutingDataSource(primary, Collections.singletonList(replicaConnection), 60000, 1);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        authenticate("jan.kowalski@test.pl");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void replicaReadsGoToReplica() {
+        assertEquals("replica", replicaRead());
+    }
+
+    @Test
+    void readOnlyTransactionsWithoutReplicaReadStayOnPrimary() {
+        assertEquals("primary", readTransaction.execute(status -> node()));
+    }
+
+    @Test
+    void writesGoToPrimary() {
+        assertEquals("primary", writeTransaction.execute(status -> node()));
+    }
+
+    @Test
+    void writerReadsOwnWritesFromPrimary() {
+        writeTransaction.execute(status -> jdbcTemplate.update("UPDATE node SET name = 'primary'"));
+
+        assertEquals("primary", replicaRead());
+        authenticate("anna.nowak@test.pl");
+        assertEquals("replica", replicaRead());
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimaryUntilItRecovers() {
+        replicaConnection.down = true;
+        assertEquals("primary", replicaRead());
+        assertEquals(0, routingDataSource.getHealthyReplicas());
+
+        replicaConnection.down = false;
+        assertEquals("primary", replicaRead());
+        routingDataSource.checkReplicas();
+        assertEquals("replica", replicaRead());
+    }
+
+    private String replicaRead() {
+        boolean outermost = ReplicaRoutingDataSource.beginReplicaRead();
+        try {
+            return readTransaction.execute(status -> node());
+        } finally {
+            if (outermost)
+                ReplicaRoutingDataSource.endReplicaRead();
+        }
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, Collections.emptyList()));
+    }
+
+    private static class SwitchableDataSource extends DelegatingDataSource {
+        private volatile boolean down;
+
+        private SwitchableDataSource(EmbeddedDatabase target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down)
+                throw new SQLException("Replica is down");
+            return super.getConnection();
+        }
+    }
+}
@@ -1,10 +1,69 @@
 package com.ustudent.resquod.controller;
 
+import com.ustudent.resquod.configuration.ExpectedQueries;
+import com.ustudent.resquod.configuration.QueryCountExtension;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.file.Path;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(QueryCountExtension.class)
 class AuthorizationControllerTest {
 
+    @TempDir
+    static Path keyDirectory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:authorization;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("resquod.jwt.key-file", () -> keyDirectory.resolve("jwt-signing-keys").toString());
+        registry.add("resquod.hashing.cost", () -> "10");
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (email, password, role, name, surname) " +
+                "VALUES ('anna.nowak@test.pl', 'password', 'ROLE_USER', 'Anna', 'Nowak')");
+    }
+
+    @Test
+    @ExpectedQueries(2)
+    void registerLooksUpTheEmailAndInsertsTheUser() throws Exception {
+        mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"jan.kowalski@test.pl\",\"name\":\"Jan\",\"surname\":\"Kowalski\",\"password\":\"secret123\"}"))
+                .andExpect(status().isOk());
+    }
+
     @Test
-    void register() {
+    @ExpectedQueries(1)
+    void registerWithTakenEmailOnlyLooksItUp() throws Exception {
+        mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"anna.nowak@test.pl\",\"name\":\"Anna\",\"surname\":\"Nowak\",\"password\":\"secret123\"}"))
+                .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+}
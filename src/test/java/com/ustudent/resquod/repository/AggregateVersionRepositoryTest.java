@@ -0,0 +1,34 @@
+package com.ustudent.resquod.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(AggregateVersionRepository.class)
+class AggregateVersionRepositoryTest {
+
+    @Autowired
+    private AggregateVersionRepository aggregateVersionRepository;
+
+    @Test
+    void missingCountersStartAtZero() {
+        assertEquals(0, aggregateVersionRepository.find("event1"));
+    }
+
+    @Test
+    void incrementCreatesAndIncrementsCounters() {
+        aggregateVersionRepository.increment(Collections.singletonList("event1"));
+        aggregateVersionRepository.increment(Arrays.asList("event1", "user7"));
+
+        assertEquals(2, aggregateVersionRepository.find("event1"));
+        assertEquals(1, aggregateVersionRepository.find("user7"));
+        assertEquals(0, aggregateVersionRepository.find("user8"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.AttendanceList;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.User;
+import com.ustudent.resquod.model.dao.PendingCheckIn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({AttendanceStatisticsBatchRepository.class, EventMembershipRepository.class, PresenceBatchRepository.class})
+class AttendanceStatisticsBatchRepositoryTest {
+
+    @Autowired
+    private AttendanceStatisticsBatchRepository statisticsBatchRepository;
+    @Autowired
+    private EventMembershipRepository eventMembershipRepository;
+    @Autowired
+    private PresenceBatchRepository presenceBatchRepository;
+    @Autowired
+    private PresenceRepository presenceRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long eventId;
+    private Long attendanceListId;
+    private Long presentUserId;
+    private Long absentUserId;
+
+    @BeforeEach
+    void setUp() {
+        Event event = new Event();
+        event.setName("Lecture");
+        eventId = entityManager.persistAndFlush(event).getId();
+        presentUserId = entityManager.persistAndFlush(new User("Jan", "Kowalski", "jan.kowalski@test.pl", "password")).getId();
+        absentUserId = entityManager.persistAndFlush(new User("Anna", "Nowak", "anna.nowak@test.pl", "password")).getId();
+        join(presentUserId);
+
+        AttendanceList attendanceList = new AttendanceList();
+        attendanceList.setName("Week 1");
+        attendanceList.setStartTime(LocalDateTime.now());
+        attendanceList.setEndTime(LocalDateTime.now().plusHours(1));
+        attendanceList.setEvent(event);
+        attendanceListId = entityManager.persistAndFlush(attendanceList).getId();
+        presenceBatchRepository.insertAbsentPresencesForEventMembers(attendanceListId, eventId);
+        statisticsBatchRepository.listCreated(attendanceListId, eventId);
+
+        join(absentUserId);
+        presenceRepository.markPresent(presentUserId, attendanceListId, LocalDateTime.now());
+        statisticsBatchRepository.checkedIn(Collections.singletonList(
+                new PendingCheckIn(null, presentUserId, eventId, attendanceListId, null)));
+    }
+
+    @Test
+    void countersFollowJoinsListsAndCheckIns() {
+        assertArrayEquals(new int[]{1, 1}, memberCounters(presentUserId));
+        assertArrayEquals(new int[]{0, 1}, memberCounters(absentUserId));
+        assertArrayEquals(new int[]{1, 2}, listCounters());
+        assertEquals(0, statisticsBatchRepository.reconcileEvent(eventId));
+    }
+
+    @Test
+    void reconciliationRewritesDriftedCounters() {
+        jdbcTemplate.update("UPDATE user_event_statistics SET present_count = 7 WHERE user_id = ?", presentUserId);
+        jdbcTemplate.update("DELETE FROM attendance_list_statistics WHERE attendance_list_id = ?", attendanceListId);
+
+        assertEquals(2, statisticsBatchRepository.reconcileEvent(eventId));
+        assertArrayEquals(new int[]{1, 1}, memberCounters(presentUserId));
+        assertArrayEquals(new int[]{1, 2}, listCounters());
+        assertEquals(0, statisticsBatchRepository.reconcileEvent(eventId));
+    }
+
+    private void join(Long userId) {
+        assertTrue(eventMembershipRepository.addMember(eventId, userId));
+        presenceBatchRepository.insertAbsentPresencesForNewMember(eventId, userId);
+        statisticsBatchRepository.insertMemberCounters(eventId, userId);
+        statisticsBatchRepository.incrementListTotals(eventId);
+    }
+
+    private int[] memberCounters(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT present_count, total_count FROM user_event_statistics " +
+                "WHERE user_id = ? AND event_id = ?", (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)}, userId, eventId);
+    }
+
+    private int[] listCounters() {
+        return jdbcTemplate.queryForObject("SELECT present_count, total_count FROM attendance_list_statistics " +
+                "WHERE attendance_list_id = ?", (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)}, attendanceListId);
+    }
+}
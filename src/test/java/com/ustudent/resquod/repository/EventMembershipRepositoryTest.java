@@ -0,0 +1,103 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.AttendanceList;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({EventMembershipRepository.class, PresenceBatchRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventMembershipRepositoryTest {
+
+    private static final int CONCURRENT_JOINS = 32;
+    private static final int ATTENDANCE_LISTS = 3;
+
+    @Autowired
+    private EventMembershipRepository eventMembershipRepository;
+    @Autowired
+    private PresenceBatchRepository presenceBatchRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private AttendanceListRepository attendanceListRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentJoinsAddEveryUserOnce() throws Exception {
+        Event event = new Event();
+        event.setName("Lecture");
+        event.setPassword("join-code");
+        eventRepository.save(event);
+        for (int i = 0; i < ATTENDANCE_LISTS; i++) {
+            AttendanceList attendanceList = new AttendanceList();
+            attendanceList.setName("Week " + i);
+            attendanceList.setStartTime(LocalDateTime.now());
+            attendanceList.setEndTime(LocalDateTime.now().plusHours(1));
+            attendanceList.setEvent(event);
+            attendanceListRepository.save(attendanceList);
+        }
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_JOINS / 2; i++)
+            userIds.add(userRepository.save(new User("Jan", "Kowalski", "student" + i + "@test.pl", "password")).getId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_JOINS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> joins = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_JOINS; i++) {
+            Long userId = userIds.get(i % userIds.size());
+            joins.add(executor.submit(() -> {
+                start.await();
+                boolean joined = eventMembershipRepository.addMember(event.getId(), userId);
+                if (joined)
+                    presenceBatchRepository.insertAbsentPresencesForNewMember(event.getId(), userId);
+                return joined;
+            }));
+        }
+        start.countDown();
+        int joined = 0;
+        for (Future<Boolean> join : joins) {
+            if (join.get(30, TimeUnit.SECONDS))
+                joined++;
+        }
+        executor.shutdown();
+
+        assertEquals(userIds.size(), joined);
+        assertEquals(userIds.size(), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events_users WHERE events_id = ?", Integer.class, event.getId()));
+        assertEquals(userIds.size() * ATTENDANCE_LISTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM presences", Integer.class));
+    }
+
+    @Test
+    void joiningTwiceIsRejected() {
+        Event event = new Event();
+        event.setName("Seminar");
+        eventRepository.save(event);
+        Long userId = userRepository.save(new User("Anna", "Nowak", "anna.nowak@test.pl", "password")).getId();
+
+        assertTrue(eventMembershipRepository.addMember(event.getId(), userId));
+        assertFalse(eventMembershipRepository.addMember(event.getId(), userId));
+        assertTrue(eventRepository.isMember(event.getId(), userId));
+    }
+}
@@ -1,9 +1,106 @@
 package com.ustudent.resquod.repository;
 
+import com.ustudent.resquod.model.Corporation;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.Room;
+import com.ustudent.resquod.model.User;
+import com.ustudent.resquod.model.dao.EventDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class EventRepositoryTest {
 
+    private static final int EVENTS = 20;
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private User member;
+    private Long administratorId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        member = entityManager.persist(new User("Jan", "Kowalski", "jan.kowalski@test.pl", "password"));
+        administratorId = entityManager.persist(new User("Anna", "Nowak", "anna.nowak@test.pl", "password")).getId();
+        for (int i = 0; i < EVENTS; i++) {
+            Corporation corporation = entityManager.persist(new Corporation("Corporation " + i));
+            Room room = new Room();
+            room.setName("Room " + i);
+            room.setCorporation(corporation);
+            entityManager.persist(room);
+            Event event = new Event();
+            event.setName("Event " + i);
+            event.setPassword("password" + i);
+            event.setAdministratorId(administratorId);
+            event.setRoom(room);
+            event.getUsers().add(member);
+            entityManager.persist(event);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void allEventsAreLoadedInOneQuery() {
+        List<EventDTO> events = eventRepository.findAllEventDTOs(0L, PageRequest.of(0, EVENTS));
+
+        assertEquals(EVENTS, events.size());
+        assertRoomsAndCorporationsLoaded(events);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void allEventsAreReadInKeysetPages() {
+        List<EventDTO> firstPage = eventRepository.findAllEventDTOs(0L, PageRequest.of(0, EVENTS / 2));
+        Long lastId = firstPage.get(firstPage.size() - 1).getId();
+        List<EventDTO> secondPage = eventRepository.findAllEventDTOs(lastId, PageRequest.of(0, EVENTS));
+
+        assertEquals(EVENTS / 2, firstPage.size());
+        assertEquals(EVENTS - EVENTS / 2, secondPage.size());
+        assertTrue(secondPage.stream().allMatch(event -> event.getId() > lastId));
+    }
+
+    @Test
+    void adminEventsAreLoadedInOneQuery() {
+        Set<EventDTO> events = eventRepository.findEventDTOsByAdministratorId(administratorId);
+
+        assertEquals(EVENTS, events.size());
+        assertRoomsAndCorporationsLoaded(events);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void userEventsAreLoadedInOneQuery() {
+        Set<EventDTO> events = eventRepository.findEventDTOsByUserId(member.getId());
 
+        assertEquals(EVENTS, events.size());
+        assertRoomsAndCorporationsLoaded(events);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 
-}
\ No newline at end of file
+    private void assertRoomsAndCorporationsLoaded(Collection<EventDTO> events) {
+        for (EventDTO event : events) {
+            assertNotNull(event.getRoom().getName());
+            assertNotNull(event.getRoom().getCorporation().getName());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.configuration.ExpectedQueries;
+import com.ustudent.resquod.configuration.QueryCountExtension;
+import com.ustudent.resquod.model.Corporation;
+import com.ustudent.resquod.model.Position;
+import com.ustudent.resquod.model.Room;
+import com.ustudent.resquod.model.dao.PositionData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ExtendWith(QueryCountExtension.class)
+class PositionRepositoryTest {
+
+    private static final int ROOMS = 10;
+
+    @Autowired
+    private PositionRepository positionRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long corporationId;
+
+    @BeforeEach
+    void setUp() {
+        Corporation corporation = entityManager.persist(new Corporation("Corporation"));
+        corporationId = corporation.getId();
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room();
+            room.setName("Room " + i);
+            room.setCorporation(corporation);
+            entityManager.persist(room);
+            entityManager.persist(position(room, 1, null));
+            entityManager.persist(position(room, 2, "tag" + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @ExpectedQueries(1)
+    void untaggedPositionsAreLoadedWithTheirRoomsInOneQuery() {
+        List<PositionData> positions = positionRepository.findCorpoNullTags(corporationId);
+
+        assertEquals(ROOMS, positions.size());
+        for (PositionData position : positions) {
+            assertNull(position.getTagId());
+            assertNotNull(position.getRoomId());
+            assertTrue(position.getRoomName().startsWith("Room "));
+        }
+    }
+
+    private static Position position(Room room, int number, String tagId) {
+        Position position = new Position();
+        position.setRoom(room);
+        position.setNumberOfPosition(number);
+        position.setTagId(tagId);
+        return position;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ustudent.resquod.repository;
+
+import com.ustudent.resquod.model.AttendanceList;
+import com.ustudent.resquod.model.Event;
+import com.ustudent.resquod.model.Presence;
+import com.ustudent.resquod.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PresenceRepositoryTest {
+
+    private static final int CONCURRENT_TAPS = 64;
+
+    @Autowired
+    private PresenceRepository presenceRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private AttendanceListRepository attendanceListRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void markPresentMarksExactlyOnceUnderConcurrentTaps() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Presence presence = new TransactionTemplate(transactionManager).execute(status -> {
+            User user = userRepository.save(new User("Jan", "Kowalski", "jan.kowalski@test.pl", "password"));
+            Event event = new Event();
+            event.setName("Lecture");
+            eventRepository.save(event);
+            AttendanceList attendanceList = new AttendanceList();
+            attendanceList.setName("Week 1");
+            attendanceList.setStartTime(now.minusMinutes(5));
+            attendanceList.setEndTime(now.plusHours(1));
+            attendanceList.setEvent(event);
+            attendanceListRepository.save(attendanceList);
+            Presence absent = new Presence();
+            absent.setUser(user);
+            absent.setAttendanceList(attendanceList);
+            absent.setPresence(false);
+            return presenceRepository.save(absent);
+        });
+        Long userId = presence.getUser().getId();
+        Long attendanceListId = presence.getAttendanceList().getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_TAPS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> taps = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_TAPS; i++) {
+            LocalDateTime tapDate = now.plusSeconds(i);
+            taps.add(executor.submit(() -> {
+                start.await();
+                return presenceRepository.markPresent(userId, attendanceListId, tapDate);
+            }));
+        }
+        start.countDown();
+        int marked = 0;
+        for (Future<Integer> tap : taps) {
+            marked += tap.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, marked);
+        Presence stored = presenceRepository.findByUserIdAndAttendanceListId(userId, attendanceListId).orElseThrow();
+        assertTrue(stored.getPresence());
+        assertNotNull(stored.getDate());
+    }
+}